@@ -1,14 +1,58 @@
 
 package com.cybersecurex;
 
+import com.cybersecurex.service.BreachFilter;
+import com.cybersecurex.service.PwnedHashIndex;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
 @SpringBootApplication
 public class CyberSecureXApplication {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("import-breach-index")) {
+            importBreachIndex(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("build-breach-filter")) {
+            buildBreachFilter(args);
+            return;
+        }
         SpringApplication.run(CyberSecureXApplication.class, args);
         System.out.println("🔐 CyberSecureX Java Edition is running!");
         System.out.println("Visit: http://localhost:8000");
     }
+
+    // import-breach-index <pwned-passwords-sha1-ordered-by-hash.txt> <index file>; set hibp.index.path to the result
+    private static void importBreachIndex(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: import-breach-index <SHA-1 dump ordered by hash> <index file>");
+            System.exit(2);
+        }
+        long started = System.currentTimeMillis();
+        try (InputStream dump = new BufferedInputStream(Files.newInputStream(Paths.get(args[1])), 1 << 16)) {
+            long hashes = PwnedHashIndex.importDump(dump, Paths.get(args[2]));
+            System.out.println("Imported " + hashes + " hashes into " + args[2] + " in "
+                    + (System.currentTimeMillis() - started) / 1000 + " s");
+        }
+    }
+
+    // build-breach-filter <index file> <filter file> [bits per key, default 8]; set hibp.filter.path to the result
+    private static void buildBreachFilter(String[] args) throws IOException {
+        if (args.length != 3 && args.length != 4) {
+            System.err.println("Usage: build-breach-filter <index file> <filter file> [bits per key]");
+            System.exit(2);
+        }
+        long started = System.currentTimeMillis();
+        double bitsPerKey = args.length == 4 ? Double.parseDouble(args[3]) : 8;
+        long hashes = BreachFilter.build(Paths.get(args[1]), Paths.get(args[2]), bitsPerKey);
+        System.out.println("Built a filter of " + hashes + " hashes into " + args[2] + " ("
+                + Files.size(Paths.get(args[2])) / (1024 * 1024) + " MB) in "
+                + (System.currentTimeMillis() - started) / 1000 + " s");
+    }
 }
@@ -1,22 +1,112 @@
 package com.cybersecurex.controller;
 
+import com.cybersecurex.service.NetworkScanListener;
+import com.cybersecurex.service.NetworkScanOptions;
 import com.cybersecurex.service.NetworkScannerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/network")
 public class NetworkController {
 
+    // Time past the scan deadline for late hostnames, UDP responders and the summary
+    private static final long STREAM_MARGIN_MS = 60_000;
+
     @Autowired
     private NetworkScannerService networkScannerService;
 
     @PostMapping("/scan")
-    public ResponseEntity<Map<String, Object>> scanLocalNetwork() {
-        Map<String, Object> result = networkScannerService.scanLocalNetwork();
+    public ResponseEntity<Map<String, Object>> scanNetwork(
+            @RequestParam(value = "targets", required = false) String targets,
+            @RequestParam(value = "ipv6", required = false) Boolean ipv6,
+            @RequestParam(value = "portProfile", required = false) String portProfile,
+            @RequestParam(value = "ports", required = false) String ports,
+            @RequestParam(value = "fingerprint", required = false) Boolean fingerprint,
+            @RequestParam(value = "delta", required = false) Boolean delta,
+            @RequestParam(value = "fullSweep", required = false) Boolean fullSweep) {
+        Map<String, Object> result = networkScannerService.scanNetwork(
+                buildOptions(targets, ipv6, portProfile, ports, fingerprint, delta, fullSweep));
+        return ResponseEntity.ok(result);
+    }
+
+    // Re-reads the port and device classification catalog (network.catalog.path or the bundled one)
+    @PostMapping("/catalog/reload")
+    public ResponseEntity<Map<String, Object>> reloadCatalog() {
+        Map<String, Object> result = networkScannerService.reloadCatalog();
+        if (!"success".equals(result.get("status"))) {
+            return ResponseEntity.badRequest().body(result);
+        }
         return ResponseEntity.ok(result);
     }
+
+    // Emits a "device" event per discovered host, "device-update" events for late
+    // hostnames, then a final "summary" event
+    @GetMapping(value = "/scan/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNetworkScan(@RequestParam(value = "targets", required = false) String targets,
+            @RequestParam(value = "ipv6", required = false) Boolean ipv6,
+            @RequestParam(value = "portProfile", required = false) String portProfile,
+            @RequestParam(value = "ports", required = false) String ports,
+            @RequestParam(value = "fingerprint", required = false) Boolean fingerprint,
+            @RequestParam(value = "delta", required = false) Boolean delta,
+            @RequestParam(value = "fullSweep", required = false) Boolean fullSweep) {
+        NetworkScanOptions options = buildOptions(targets, ipv6, portProfile, ports, fingerprint, delta, fullSweep);
+        SseEmitter emitter = new SseEmitter(networkScannerService.scanDeadlineMillis(options) + STREAM_MARGIN_MS);
+
+        NetworkScanListener listener = new NetworkScanListener() {
+            @Override
+            public void onDevice(Map<String, Object> device) {
+                sendEvent(emitter, "device", device);
+            }
+
+            @Override
+            public void onDeviceUpdated(Map<String, Object> device) {
+                sendEvent(emitter, "device-update", device);
+            }
+        };
+
+        networkScannerService.scanNetworkAsync(options, listener)
+                .whenComplete((summary, error) -> {
+                    if (error != null) {
+                        emitter.completeWithError(error);
+                        return;
+                    }
+                    try {
+                        emitter.send(SseEmitter.event().name("summary").data(summary));
+                        emitter.complete();
+                    } catch (IOException e) {
+                        emitter.completeWithError(e);
+                    }
+                });
+
+        return emitter;
+    }
+
+    private NetworkScanOptions buildOptions(String targets, Boolean ipv6, String portProfile, String ports,
+            Boolean fingerprint, Boolean delta, Boolean fullSweep) {
+        NetworkScanOptions options = new NetworkScanOptions(targets);
+        options.setIncludeIpv6(ipv6);
+        options.setPortProfile(portProfile);
+        options.setPorts(ports);
+        options.setFingerprint(fingerprint);
+        options.setDelta(delta);
+        options.setFullSweep(fullSweep);
+        return options;
+    }
+
+    private void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException e) {
+            // Client went away - abort the scan so its probes are cancelled
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -1,10 +1,19 @@
 package com.cybersecurex.controller;
 
+import com.cybersecurex.service.PasswordAuditService;
 import com.cybersecurex.service.PasswordService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
 import java.util.Map;
 
 @RestController
@@ -14,6 +23,12 @@ public class PasswordController {
     @Autowired
     private PasswordService passwordService;
 
+    @Autowired
+    private PasswordAuditService auditService;
+
+    @Value("${password.audit.stream-timeout-ms:3600000}")
+    private long auditStreamTimeoutMillis;
+
     @PostMapping("/analyze")
     public ResponseEntity<Map<String, Object>> analyzePassword(@RequestParam String password) {
         if (password == null || password.trim().isEmpty()) {
@@ -23,4 +38,67 @@ public class PasswordController {
         Map<String, Object> result = passwordService.analyzePassword(password.trim());
         return ResponseEntity.ok(result);
     }
+
+    // Hit, fetch and eviction counters of the breach range cache
+    @GetMapping("/breach-cache")
+    public ResponseEntity<Map<String, Object>> breachCacheStats() {
+        return ResponseEntity.ok(passwordService.breachCacheStats());
+    }
+
+    // Audits an uploaded file of passwords or SHA-1 hashes, one per line.
+    // Emits a "result" event per reported entry as it is evaluated, then a final "summary" event
+    @PostMapping(value = "/audit", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> auditPasswords(@RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "report", required = false) String report,
+            @RequestParam(value = "checkBreaches", defaultValue = "true") boolean checkBreaches) {
+        SseEmitter emitter = new SseEmitter(auditStreamTimeoutMillis);
+        try {
+            if (file == null || file.isEmpty()) {
+                throw new IllegalArgumentException("No file uploaded");
+            }
+            InputStream in = file.getInputStream();
+            try {
+                auditService.auditAsync(in, format, report, checkBreaches,
+                        result -> sendEvent(emitter, "result", result))
+                        .whenComplete((summary, error) -> {
+                            if (error != null) {
+                                emitter.completeWithError(error);
+                                return;
+                            }
+                            try {
+                                emitter.send(SseEmitter.event().name("summary").data(summary));
+                                emitter.complete();
+                            } catch (IOException e) {
+                                emitter.completeWithError(e);
+                            }
+                        });
+            } catch (IllegalArgumentException e) {
+                in.close();
+                throw e;
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            // Declared as a stream so Spring writes the emitter; the rejection is its only event
+            Map<String, Object> result = new HashMap<>();
+            result.put("status", "error");
+            result.put("message", "Invalid audit: " + e.getMessage());
+            try {
+                emitter.send(SseEmitter.event().name("error").data(result));
+                emitter.complete();
+            } catch (IOException sendError) {
+                emitter.completeWithError(sendError);
+            }
+            return ResponseEntity.badRequest().body(emitter);
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    private void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException e) {
+            // Client went away - the audit stops reading the remaining entries
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -0,0 +1,88 @@
+package com.cybersecurex.controller;
+
+import com.cybersecurex.service.NetworkScanOptions;
+import com.cybersecurex.service.ScanJobService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class ScanJobController {
+
+    @Autowired
+    private ScanJobService scanJobService;
+
+    @PostMapping("/network")
+    public ResponseEntity<Map<String, Object>> submitNetworkScan(
+            @RequestParam(value = "targets", required = false) String targets,
+            @RequestParam(value = "concurrency", required = false) Integer concurrency,
+            @RequestParam(value = "ipv6", required = false) Boolean ipv6,
+            @RequestParam(value = "portProfile", required = false) String portProfile,
+            @RequestParam(value = "ports", required = false) String ports,
+            @RequestParam(value = "fingerprint", required = false) Boolean fingerprint,
+            @RequestParam(value = "delta", required = false) Boolean delta,
+            @RequestParam(value = "fullSweep", required = false) Boolean fullSweep,
+            HttpServletRequest request) {
+        NetworkScanOptions options = new NetworkScanOptions(targets);
+        options.setConcurrency(concurrency);
+        options.setIncludeIpv6(ipv6);
+        options.setPortProfile(portProfile);
+        options.setPorts(ports);
+        options.setFingerprint(fingerprint);
+        options.setDelta(delta);
+        options.setFullSweep(fullSweep);
+        Map<String, Object> result = scanJobService.submitNetworkScan(options, getClientIP(request));
+        return accepted(result);
+    }
+
+    @PostMapping("/website")
+    public ResponseEntity<Map<String, Object>> submitWebsiteScan(@RequestParam String url,
+            HttpServletRequest request) {
+        Map<String, Object> result = scanJobService.submitWebsiteScan(url, getClientIP(request));
+        return accepted(result);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId) {
+        Map<String, Object> result = scanJobService.getJob(jobId);
+        if (result == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Scan job not found"));
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable String jobId) {
+        Map<String, Object> result = scanJobService.cancelJob(jobId);
+        if (result == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Scan job not found"));
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    private ResponseEntity<Map<String, Object>> accepted(Map<String, Object> result) {
+        if ("success".equals(result.get("status"))) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(result);
+        }
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(result);
+    }
+
+    private String getClientIP(HttpServletRequest request) {
+        String xForwardedFor = request.getHeader("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            return xForwardedFor.split(",")[0];
+        }
+
+        String xRealIP = request.getHeader("X-Real-IP");
+        if (xRealIP != null && !xRealIP.isEmpty()) {
+            return xRealIP;
+        }
+
+        return request.getRemoteAddr();
+    }
+}
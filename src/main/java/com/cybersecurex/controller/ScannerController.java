@@ -1,10 +1,22 @@
 package com.cybersecurex.controller;
 
+import com.cybersecurex.service.WebsiteBatchScanner;
+import com.cybersecurex.service.WebsiteCrawler;
 import com.cybersecurex.service.WebsiteScannerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -14,9 +26,121 @@ public class ScannerController {
     @Autowired
     private WebsiteScannerService scannerService;
 
+    @Autowired
+    private WebsiteBatchScanner batchScanner;
+
+    @Autowired
+    private WebsiteCrawler crawler;
+
+    @Value("${website.batch.stream-timeout-ms:3600000}")
+    private long batchStreamTimeoutMillis;
+
     @PostMapping("/scan")
-    public ResponseEntity<Map<String, Object>> scanWebsite(@RequestParam String url) {
-        Map<String, Object> result = scannerService.scanWebsite(url);
+    public ResponseEntity<Map<String, Object>> scanWebsite(@RequestParam String url,
+            @RequestParam(value = "portProfile", required = false) String portProfile,
+            @RequestParam(value = "ports", required = false) String ports,
+            @RequestParam(value = "force", defaultValue = "false") boolean force) {
+        Map<String, Object> result = scannerService.scanWebsite(url, portProfile, ports, force);
         return ResponseEntity.ok(result);
     }
+
+    // Hit, miss and refresh counters of the website result cache
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> cacheStats() {
+        return ResponseEntity.ok(scannerService.cacheStats());
+    }
+
+    // Scans URLs given as a list and/or an uploaded file (one per line, '#' comments).
+    // Emits a "result" event per URL as it completes, then a final "summary" event
+    @PostMapping(value = "/batch", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> scanWebsites(@RequestParam(value = "urls", required = false) String urls,
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "portProfile", required = false) String portProfile,
+            @RequestParam(value = "ports", required = false) String ports,
+            @RequestParam(value = "concurrency", required = false) Integer concurrency,
+            @RequestParam(value = "perHostConcurrency", required = false) Integer perHostConcurrency) {
+        SseEmitter emitter = new SseEmitter(batchStreamTimeoutMillis);
+        try {
+            List<String> targets = new ArrayList<>();
+            if (urls != null) {
+                targets.addAll(WebsiteBatchScanner.parseTargets(urls));
+            }
+            if (file != null && !file.isEmpty()) {
+                try (InputStream in = file.getInputStream()) {
+                    targets.addAll(WebsiteBatchScanner.parseTargets(in));
+                }
+            }
+            batchScanner.scanAsync(targets, portProfile, ports, concurrency, perHostConcurrency,
+                    result -> sendEvent(emitter, "result", result))
+                    .whenComplete((summary, error) -> {
+                        if (error != null) {
+                            emitter.completeWithError(error);
+                            return;
+                        }
+                        try {
+                            emitter.send(SseEmitter.event().name("summary").data(summary));
+                            emitter.complete();
+                        } catch (IOException e) {
+                            emitter.completeWithError(e);
+                        }
+                    });
+        } catch (IllegalArgumentException | IOException e) {
+            return rejected(emitter, "Invalid batch: " + e.getMessage());
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    // Crawls the site from the URL and audits every page's headers and TLS.
+    // Emits a "page" event per fetched page, then a final "summary" event
+    @PostMapping(value = "/crawl", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> crawlWebsite(@RequestParam String url,
+            @RequestParam(value = "maxPages", required = false) Integer maxPages,
+            @RequestParam(value = "maxDepth", required = false) Integer maxDepth,
+            @RequestParam(value = "concurrency", required = false) Integer concurrency,
+            @RequestParam(value = "includeSubdomains", defaultValue = "false") boolean includeSubdomains) {
+        SseEmitter emitter = new SseEmitter(batchStreamTimeoutMillis);
+        try {
+            crawler.crawlAsync(url, maxPages, maxDepth, concurrency, includeSubdomains,
+                    page -> sendEvent(emitter, "page", page))
+                    .whenComplete((summary, error) -> {
+                        if (error != null) {
+                            emitter.completeWithError(error);
+                            return;
+                        }
+                        try {
+                            emitter.send(SseEmitter.event().name("summary").data(summary));
+                            emitter.complete();
+                        } catch (IOException e) {
+                            emitter.completeWithError(e);
+                        }
+                    });
+        } catch (IllegalArgumentException e) {
+            return rejected(emitter, e.getMessage());
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    // Spring streams an emitter only when the declared return type says so, so a request rejected
+    // before streaming still answers as a stream: a 400 with a single "error" event
+    private ResponseEntity<SseEmitter> rejected(SseEmitter emitter, String message) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("status", "error");
+        result.put("message", message);
+        try {
+            emitter.send(SseEmitter.event().name("error").data(result));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return ResponseEntity.badRequest().body(emitter);
+    }
+
+    private void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException e) {
+            // Client went away - the batch stops scanning the remaining URLs
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -0,0 +1,104 @@
+package com.cybersecurex.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "scan_snapshots", indexes = @Index(name = "idx_scan_snapshots_targets", columnList = "targets"))
+public class ScanSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Column(nullable = false, length = 2048)
+    private String targets;
+
+    @Column(nullable = false)
+    private LocalDateTime scanTime;
+
+    @Column(nullable = false)
+    private int hostCount;
+
+    // False when the scan hit its deadline, so missing hosts may simply not have been probed
+    @Column(nullable = false)
+    private boolean complete;
+
+    // Latest scan of these targets that probed every host's full port profile; null if none did
+    private LocalDateTime lastFullSweep;
+
+    // Deflated host records, see NetworkSnapshot
+    @Column(nullable = false)
+    private byte[] hosts;
+
+    // Constructors
+    public ScanSnapshot() {
+    }
+
+    public ScanSnapshot(String targets, int hostCount, boolean complete, LocalDateTime lastFullSweep,
+            byte[] hosts) {
+        this.targets = targets;
+        this.hostCount = hostCount;
+        this.complete = complete;
+        this.lastFullSweep = lastFullSweep;
+        this.hosts = hosts;
+        this.scanTime = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTargets() {
+        return targets;
+    }
+
+    public void setTargets(String targets) {
+        this.targets = targets;
+    }
+
+    public LocalDateTime getScanTime() {
+        return scanTime;
+    }
+
+    public void setScanTime(LocalDateTime scanTime) {
+        this.scanTime = scanTime;
+    }
+
+    public int getHostCount() {
+        return hostCount;
+    }
+
+    public void setHostCount(int hostCount) {
+        this.hostCount = hostCount;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    public LocalDateTime getLastFullSweep() {
+        return lastFullSweep;
+    }
+
+    public void setLastFullSweep(LocalDateTime lastFullSweep) {
+        this.lastFullSweep = lastFullSweep;
+    }
+
+    public byte[] getHosts() {
+        return hosts;
+    }
+
+    public void setHosts(byte[] hosts) {
+        this.hosts = hosts;
+    }
+}
@@ -0,0 +1,16 @@
+package com.cybersecurex.repository;
+
+import com.cybersecurex.model.ScanSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ScanSnapshotRepository extends JpaRepository<ScanSnapshot, Long> {
+
+    Optional<ScanSnapshot> findFirstByTargetsOrderByScanTimeDesc(String targets);
+
+    List<ScanSnapshot> findByTargetsOrderByScanTimeDesc(String targets);
+}
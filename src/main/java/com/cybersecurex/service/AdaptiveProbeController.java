@@ -0,0 +1,159 @@
+package com.cybersecurex.service;
+
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Derives probe timeouts and probe concurrency from measured round-trip times.
+ *
+ * Timeouts follow TCP's retransmission timer (RFC 6298), kept per
+ * destination: a smoothed RTT and RTT variance are updated from every
+ * response of that host and its timeout is SRTT + 4 * RTTVAR, clamped to the
+ * configured bounds. A slow host is therefore never timed out against a fast
+ * neighbour's RTT. A destination that has not answered yet gets the initial
+ * timeout until a handful of hosts have answered, then twice the slowest
+ * timeout measured so far.
+ *
+ * Concurrency uses a loss-based congestion window that starts at the given
+ * initial window, below the maximum. Each response grows it by one until the
+ * first loss, then by one per window's worth of responses. A probe to a host
+ * that has answered before, timing out, counts as a loss and halves the
+ * window, at most once per that host's smoothed RTT. A host that times out
+ * several times in a row is treated as filtering rather than congested, and
+ * its further timeouts are ignored. Silent addresses never answered, so their
+ * timeouts say nothing about congestion; they grow the window slowly, like
+ * any loss-free round.
+ */
+public class AdaptiveProbeController {
+
+    private static final double ALPHA = 1.0 / 8;
+    private static final double BETA = 1.0 / 4;
+    private static final int SAMPLED_HOSTS_FOR_ESTIMATE = 8;
+    private static final int FILTERING_TIMEOUTS = 3;
+
+    private final long initialTimeoutNanos;
+    private final long minTimeoutNanos;
+    private final long maxTimeoutNanos;
+    private final int minWindow;
+    private final int maxWindow;
+
+    private final Map<InetAddress, Destination> destinations = new HashMap<>();
+    private long slowestTimeoutNanos;
+    private long samples;
+    private double window;
+    private double slowStartThreshold;
+    private long lastDecrease;
+    private int decreases;
+    private long losses;
+
+    public AdaptiveProbeController(int initialTimeoutMillis, int minTimeoutMillis, int maxTimeoutMillis,
+            int initialWindow, int maxWindow) {
+        this.initialTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(initialTimeoutMillis);
+        this.minTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.min(minTimeoutMillis, initialTimeoutMillis));
+        this.maxTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(maxTimeoutMillis, initialTimeoutMillis));
+        this.maxWindow = Math.max(1, Math.max(initialWindow, maxWindow));
+        this.minWindow = Math.max(1, Math.min(4, initialWindow));
+        this.window = Math.max(1, Math.min(initialWindow, this.maxWindow));
+        this.slowStartThreshold = this.maxWindow;
+    }
+
+    public synchronized void onResponse(InetAddress destination, long rttNanos) {
+        if (rttNanos < 0) {
+            return;
+        }
+        samples++;
+        Destination rtt = destinations.computeIfAbsent(destination, k -> new Destination());
+        if (rtt.srtt < 0) {
+            rtt.srtt = rttNanos;
+            rtt.rttvar = rttNanos / 2.0;
+        } else {
+            rtt.rttvar = (1 - BETA) * rtt.rttvar + BETA * Math.abs(rtt.srtt - rttNanos);
+            rtt.srtt = (1 - ALPHA) * rtt.srtt + ALPHA * rttNanos;
+        }
+        rtt.consecutiveTimeouts = 0;
+        slowestTimeoutNanos = Math.max(slowestTimeoutNanos, rtt.timeoutNanos());
+        grow(window < slowStartThreshold ? 1 : 1 / window);
+    }
+
+    /** Reports a probe to the destination that got no answer within its timeout. */
+    public synchronized void onTimeout(InetAddress destination) {
+        Destination rtt = destinations.get(destination);
+        if (rtt == null) {
+            grow(1 / window); // A silent address, not a lost answer
+            return;
+        }
+        if (++rtt.consecutiveTimeouts > FILTERING_TIMEOUTS) {
+            return; // Dropping systematically: a firewall, not congestion
+        }
+        losses++;
+        long now = System.nanoTime();
+        if (decreases == 0 || now - lastDecrease > rtt.srtt) {
+            slowStartThreshold = Math.max(minWindow, window / 2);
+            window = slowStartThreshold;
+            lastDecrease = now;
+            decreases++;
+        }
+    }
+
+    private void grow(double increment) {
+        window = Math.min(maxWindow, window + increment);
+    }
+
+    /** The timeout for a destination that has not answered yet. */
+    public synchronized int timeoutMillis() {
+        return toMillis(unknownTimeoutNanos());
+    }
+
+    public synchronized int timeoutMillis(InetAddress destination) {
+        Destination rtt = destinations.get(destination);
+        return toMillis(rtt != null ? rtt.timeoutNanos() : unknownTimeoutNanos());
+    }
+
+    private long unknownTimeoutNanos() {
+        if (destinations.size() < SAMPLED_HOSTS_FOR_ESTIMATE) {
+            return initialTimeoutNanos;
+        }
+        return Math.min(initialTimeoutNanos, 2 * slowestTimeoutNanos);
+    }
+
+    private static int toMillis(long nanos) {
+        return (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    public synchronized int window() {
+        return (int) window;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        double fastest = Double.MAX_VALUE;
+        double slowest = 0;
+        for (Destination rtt : destinations.values()) {
+            fastest = Math.min(fastest, rtt.srtt);
+            slowest = Math.max(slowest, rtt.srtt);
+        }
+        stats.put("samples", samples);
+        stats.put("hostsMeasured", destinations.size());
+        stats.put("fastestRttMs", destinations.isEmpty() ? null : Math.round(fastest / 10_000.0) / 100.0);
+        stats.put("slowestRttMs", destinations.isEmpty() ? null : Math.round(slowest / 10_000.0) / 100.0);
+        stats.put("unansweredTimeoutMs", timeoutMillis());
+        stats.put("concurrency", (int) window);
+        stats.put("losses", losses);
+        stats.put("windowReductions", decreases);
+        return stats;
+    }
+
+    // RFC 6298 state for one host
+    private final class Destination {
+        double srtt = -1;
+        double rttvar;
+        int consecutiveTimeouts;
+
+        long timeoutNanos() {
+            long rto = (long) (srtt + Math.max(TimeUnit.MILLISECONDS.toNanos(1), 4 * rttvar));
+            return Math.max(minTimeoutNanos, Math.min(maxTimeoutNanos, rto));
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.cybersecurex.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Off-heap pre-filter in front of the exact breach lookups: a blocked Bloom
+ * filter over the breach corpus, built from a {@link PwnedHashIndex} file
+ * with {@link #build}. Each hash sets k bits inside one 64-byte block, so a
+ * check touches a single cache line. SHA-1 output is already uniform, so
+ * its bytes are used directly as the probe positions and nothing is
+ * re-hashed. A miss means the password is definitely not in the corpus and
+ * is answered at once. Only probable positives go on to the local index or
+ * HIBP. The filter file is memory-mapped when hibp.filter.path names one.
+ * At 8 bits per key (about 900 MB for the full corpus) the false-positive
+ * rate is about 2.5%; fewer bits per key give a smaller file and more false
+ * positives. The exact rate for random hashes is computed from the bit
+ * array when the filter is built and stored in its header, so loading only
+ * maps the file and faults nothing in.
+ */
+@Component
+public class BreachFilter {
+
+    private static final int MAGIC = 0x48494246; // "HIBF"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 48;
+    private static final int BLOCK_BYTES = 64;
+    private static final int BLOCK_BITS = BLOCK_BYTES * 8;
+    private static final int MAX_PROBES = 7; // Seven 9-bit bit positions fit in one long
+    private static final int BLOCKS_PER_CHUNK = 1 << 24; // 1 GB per mapping
+
+    @Value("${hibp.filter.path:}")
+    private String filterPath;
+
+    private volatile Filter filter;
+    private volatile String loadError;
+    private volatile long loadMillis;
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong definiteNegatives = new AtomicLong();
+    private final AtomicLong confirmedPositives = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    @PostConstruct
+    public void load() {
+        if (filterPath == null || filterPath.isBlank()) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            filter = Filter.open(Paths.get(filterPath.trim()));
+            loadError = null;
+        } catch (IOException | IllegalArgumentException e) {
+            filter = null;
+            loadError = e.getMessage();
+        }
+        loadMillis = (System.nanoTime() - started) / 1_000_000;
+    }
+
+    public boolean isAvailable() {
+        return filter != null;
+    }
+
+    /** False when the hash is definitely not breached; true when it may be. */
+    public boolean mightContain(byte[] sha1) {
+        Filter current = filter;
+        if (current == null) {
+            return true;
+        }
+        checks.incrementAndGet();
+        if (current.mightContain(PwnedHashIndex.readLong(sha1, 0), PwnedHashIndex.readLong(sha1, 8))) {
+            return true;
+        }
+        definiteNegatives.incrementAndGet();
+        return false;
+    }
+
+    /** Records what the exact lookup said about a probable positive. */
+    public void recordExactResult(boolean breached) {
+        (breached ? confirmedPositives : falsePositives).incrementAndGet();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        Filter current = filter;
+        stats.put("configured", filterPath != null && !filterPath.isBlank());
+        stats.put("available", current != null);
+        if (current != null) {
+            long negatives = definiteNegatives.get();
+            long falseHits = falsePositives.get();
+            stats.put("path", current.path.toString());
+            stats.put("keys", current.keys);
+            stats.put("sizeBytes", current.blocks * BLOCK_BYTES);
+            stats.put("bitsPerKey", round((double) current.blocks * BLOCK_BITS / Math.max(1, current.keys)));
+            stats.put("probes", current.probes);
+            stats.put("buildMs", current.buildMillis);
+            stats.put("loadMs", loadMillis);
+            stats.put("expectedFalsePositiveRate", round(current.expectedFalsePositiveRate()));
+            if (current.builtFalsePositiveRate >= 0) {
+                stats.put("builtFalsePositiveRate", round(current.builtFalsePositiveRate));
+            }
+            stats.put("checks", checks.get());
+            stats.put("definiteNegatives", negatives);
+            stats.put("confirmedPositives", confirmedPositives.get());
+            stats.put("falsePositives", falseHits);
+            stats.put("observedFalsePositiveRate", negatives + falseHits == 0 ? 0.0
+                    : round((double) falseHits / (negatives + falseHits)));
+        }
+        if (loadError != null) {
+            stats.put("error", loadError);
+        }
+        return stats;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100000.0) / 100000.0;
+    }
+
+    /**
+     * Builds a filter file holding every hash of a breach index. The bit
+     * array is written through a file mapping, so the heap stays small
+     * whatever the corpus size. The file is moved into place only once it is
+     * complete.
+     *
+     * @return the number of hashes added
+     */
+    public static long build(Path indexFile, Path filterFile, double bitsPerKey) throws IOException {
+        if (!(bitsPerKey >= 1 && bitsPerKey <= 64)) {
+            throw new IllegalArgumentException("Bits per key must be between 1 and 64");
+        }
+        long started = System.nanoTime();
+        PwnedHashIndex.Mapping index = PwnedHashIndex.Mapping.open(indexFile);
+        long keys = index.records;
+        long blocks = Math.max(1, (long) Math.ceil(keys * bitsPerKey / BLOCK_BITS));
+        int probes = (int) Math.max(1, Math.min(MAX_PROBES, Math.round(bitsPerKey * Math.log(2))));
+
+        Path temp = filterFile.resolveSibling(filterFile.getFileName() + ".tmp");
+        try {
+            try (RandomAccessFile file = new RandomAccessFile(temp.toFile(), "rw")) {
+                file.setLength(0);
+                file.setLength(HEADER_BYTES + blocks * BLOCK_BYTES);
+                FileChannel channel = file.getChannel();
+                MappedByteBuffer[] chunks = map(channel, FileChannel.MapMode.READ_WRITE, blocks);
+                for (long record = 0; record < keys; record++) {
+                    long high = index.hashLong(record, 0);
+                    long low = index.hashLong(record, 8);
+                    long block = block(high, blocks);
+                    MappedByteBuffer chunk = chunks[(int) (block / BLOCKS_PER_CHUNK)];
+                    int offset = (int) (block % BLOCKS_PER_CHUNK) * BLOCK_BYTES;
+                    for (int i = 0; i < probes; i++) {
+                        int bit = (int) (low >>> (9 * i)) & (BLOCK_BITS - 1);
+                        int word = offset + (bit >>> 6) * 8;
+                        chunk.putLong(word, chunk.getLong(word) | (1L << bit));
+                    }
+                }
+                for (MappedByteBuffer chunk : chunks) {
+                    chunk.force();
+                }
+                int falsePositivePpb = (int) Math.round(falsePositiveRate(chunks, blocks, probes) * 1e9);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                        .putInt(MAGIC).putInt(VERSION).putInt(probes).putInt(falsePositivePpb)
+                        .putLong(blocks).putLong(keys).putLong(System.currentTimeMillis())
+                        .putLong((System.nanoTime() - started) / 1_000_000);
+                header.flip();
+                channel.position(0);
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, filterFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return keys;
+    }
+
+    // A random hash lands in a uniformly chosen block and tests k positions in it, so it is a false
+    // positive with probability (bits set / block bits)^k, averaged over the blocks
+    private static double falsePositiveRate(MappedByteBuffer[] chunks, long blocks, int probes) {
+        double sum = 0;
+        for (long block = 0; block < blocks; block++) {
+            MappedByteBuffer chunk = chunks[(int) (block / BLOCKS_PER_CHUNK)];
+            int offset = (int) (block % BLOCKS_PER_CHUNK) * BLOCK_BYTES;
+            int set = 0;
+            for (int word = 0; word < BLOCK_BYTES; word += 8) {
+                set += Long.bitCount(chunk.getLong(offset + word));
+            }
+            sum += Math.pow((double) set / BLOCK_BITS, probes);
+        }
+        return sum / blocks;
+    }
+
+    // Maps the block area in chunks of whole blocks; each mapping is limited to 2 GB
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long blocks)
+            throws IOException {
+        MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((blocks + BLOCKS_PER_CHUNK - 1) / BLOCKS_PER_CHUNK)];
+        for (int i = 0; i < chunks.length; i++) {
+            long first = (long) i * BLOCKS_PER_CHUNK;
+            long size = Math.min(BLOCKS_PER_CHUNK, blocks - first) * BLOCK_BYTES;
+            chunks[i] = channel.map(mode, HEADER_BYTES + first * BLOCK_BYTES, size);
+        }
+        return chunks;
+    }
+
+    // Fair block choice from the top 32 bits: (high32 * blocks) >> 32, without a division
+    private static long block(long high, long blocks) {
+        return ((high >>> 32) * blocks) >>> 32;
+    }
+
+    private static final class Filter {
+        final Path path;
+        final int probes;
+        final long blocks;
+        final long keys;
+        final long buildMillis;
+        final double builtFalsePositiveRate; // Negative for files built before it was recorded
+        final MappedByteBuffer[] chunks;
+
+        private Filter(Path path, int probes, long blocks, long keys, long buildMillis,
+                double builtFalsePositiveRate, MappedByteBuffer[] chunks) {
+            this.path = path;
+            this.probes = probes;
+            this.blocks = blocks;
+            this.keys = keys;
+            this.buildMillis = buildMillis;
+            this.builtFalsePositiveRate = builtFalsePositiveRate;
+            this.chunks = chunks;
+        }
+
+        static Filter open(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                while (header.hasRemaining() && channel.read(header) >= 0) {
+                    // Fill the header
+                }
+                header.flip();
+                if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                    throw new IllegalArgumentException("Not a breach filter file: " + path);
+                }
+                int probes = header.getInt();
+                int falsePositivePpb = header.getInt(); // Parts per billion; 0 in files built before it was recorded
+                long blocks = header.getLong();
+                long keys = header.getLong();
+                header.getLong(); // Build time
+                long buildMillis = header.getLong();
+                if (probes < 1 || probes > MAX_PROBES || blocks < 1
+                        || channel.size() != HEADER_BYTES + blocks * BLOCK_BYTES) {
+                    throw new IllegalArgumentException("Truncated breach filter file: " + path);
+                }
+                // Mappings stay valid after the channel is closed
+                return new Filter(path, probes, blocks, keys, buildMillis,
+                        falsePositivePpb > 0 ? falsePositivePpb / 1e9 : -1,
+                        map(channel, FileChannel.MapMode.READ_ONLY, blocks));
+            }
+        }
+
+        boolean mightContain(long high, long low) {
+            long block = block(high, blocks);
+            MappedByteBuffer chunk = chunks[(int) (block / BLOCKS_PER_CHUNK)];
+            int offset = (int) (block % BLOCKS_PER_CHUNK) * BLOCK_BYTES;
+            for (int i = 0; i < probes; i++) {
+                int bit = (int) (low >>> (9 * i)) & (BLOCK_BITS - 1);
+                if ((chunk.getLong(offset + (bit >>> 6) * 8) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Classic Bloom estimate; blocking adds a little on top, which the built rate shows
+        double expectedFalsePositiveRate() {
+            double bitsPerKey = (double) blocks * BLOCK_BITS / Math.max(1, keys);
+            return Math.pow(1 - Math.exp(-probes / bitsPerKey), probes);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.cybersecurex.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Port and device classification loaded from device-catalog.txt (or the file
+ * in network.catalog.path) into precompiled tables: port names, descriptions
+ * and risk levels are arrays indexed by port, hostname keywords of all rules
+ * form one Aho-Corasick automaton, and service conditions are bitmasks over
+ * service ids. Classifying a host is one pass over its hostname plus a few
+ * mask tests. {@link #reload()} swaps in a new catalog atomically.
+ */
+@Component
+public class DeviceCatalog {
+
+    private static final String[] RISK_LEVELS = { "LOW", "MEDIUM", "HIGH" };
+    private static final String UNKNOWN_SERVICE = "Unknown";
+    private static final String UNKNOWN_DESCRIPTION = "Unknown Service";
+    private static final String DEFAULT_DEVICE_TYPE = "Network Device";
+
+    @Value("${network.catalog.path:}")
+    private String catalogPath;
+
+    private volatile Catalog catalog = new Builder().build();
+
+    @PostConstruct
+    public void load() {
+        Map<String, Object> result = reload();
+        if (!"success".equals(result.get("status")) && catalogPath != null && !catalogPath.isBlank()) {
+            // A broken external catalog must not leave the scanner without one
+            try (InputStream in = new ClassPathResource("device-catalog.txt").getInputStream()) {
+                catalog = parse(in);
+            } catch (IOException | IllegalArgumentException ignored) {
+                // Keep the empty catalog; every port is reported as unknown
+            }
+        }
+    }
+
+    /** Re-reads the catalog; on any error the current catalog stays in place. */
+    public Map<String, Object> reload() {
+        Map<String, Object> result = new HashMap<>();
+        try (InputStream in = openSource()) {
+            Catalog loaded = parse(in);
+            catalog = loaded;
+            result.put("status", "success");
+            result.put("ports", loaded.portCount);
+            result.put("deviceRules", loaded.types.length);
+            result.put("message", "Device catalog loaded");
+        } catch (IOException | IllegalArgumentException e) {
+            result.put("status", "error");
+            result.put("message", "Could not load device catalog: " + e.getMessage());
+        }
+        return result;
+    }
+
+    public String serviceName(int port) {
+        String name = port >= 0 && port < 65536 ? catalog.names[port] : null;
+        return name != null ? name : UNKNOWN_SERVICE;
+    }
+
+    public String serviceDescription(int port) {
+        String description = port >= 0 && port < 65536 ? catalog.descriptions[port] : null;
+        return description != null ? description : UNKNOWN_DESCRIPTION;
+    }
+
+    public String riskLevel(int port) {
+        // Unrecognized listeners are worth a look but not an alarm
+        return port >= 0 && port < 65536 ? RISK_LEVELS[catalog.risks[port]] : RISK_LEVELS[0];
+    }
+
+    /**
+     * Device type of a host from its hostname (may be null) and the service
+     * names of its open ports. The first catalog rule that matches wins.
+     */
+    public String classify(String hostname, Collection<String> services, int openPortCount) {
+        Catalog current = catalog;
+        int best = hostname != null ? current.firstHostnameRule(hostname) : Integer.MAX_VALUE;
+
+        long[] present = new long[current.maskWords];
+        for (String service : services) {
+            Integer id = current.serviceIds.get(service);
+            if (id != null) {
+                present[id >>> 6] |= 1L << id;
+            }
+        }
+        int rules = Math.min(best, current.types.length);
+        for (int rule = 0; rule < rules; rule++) {
+            if (current.matchesServices(rule, present)
+                    || (current.minPorts[rule] > 0 && openPortCount >= current.minPorts[rule])) {
+                best = rule;
+                break;
+            }
+        }
+        return best < current.types.length ? current.types[best] : current.defaultType;
+    }
+
+    private InputStream openSource() throws IOException {
+        if (catalogPath != null && !catalogPath.isBlank()) {
+            return Files.newInputStream(Paths.get(catalogPath));
+        }
+        return new ClassPathResource("device-catalog.txt").getInputStream();
+    }
+
+    static Catalog parse(InputStream in) throws IOException {
+        Builder builder = new Builder();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            try {
+                builder.add(trimmed.split("\\|"));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        return builder.build();
+    }
+
+    private static final class Builder {
+        final String[] names = new String[65536];
+        final String[] descriptions = new String[65536];
+        final byte[] risks = new byte[65536];
+        int portCount;
+        final Map<String, Integer> serviceIds = new HashMap<>();
+        final List<String> types = new ArrayList<>();
+        final List<List<String>> keywords = new ArrayList<>();
+        final List<List<int[]>> serviceGroups = new ArrayList<>();
+        final List<Integer> minPorts = new ArrayList<>();
+        String defaultType = DEFAULT_DEVICE_TYPE;
+
+        void add(String[] fields) {
+            switch (fields[0].trim()) {
+                case "port":
+                    addPort(fields);
+                    break;
+                case "device":
+                    addRule(fields);
+                    break;
+                case "default":
+                    defaultType = fields[1].trim();
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown entry '" + fields[0] + "'");
+            }
+        }
+
+        private void addPort(String[] fields) {
+            if (fields.length != 5) {
+                throw new IllegalArgumentException("expected port|number|service|risk|description");
+            }
+            int port = Integer.parseInt(fields[1].trim());
+            if (port < 0 || port > 65535) {
+                throw new IllegalArgumentException("port out of range: " + port);
+            }
+            int risk = Arrays.asList(RISK_LEVELS).indexOf(fields[3].trim().toUpperCase());
+            if (risk < 0) {
+                throw new IllegalArgumentException("unknown risk level '" + fields[3] + "'");
+            }
+            if (names[port] == null) {
+                portCount++;
+            }
+            names[port] = fields[2].trim();
+            risks[port] = (byte) risk;
+            descriptions[port] = fields[4].trim();
+            serviceId(names[port]);
+        }
+
+        private void addRule(String[] fields) {
+            if (fields.length < 3) {
+                throw new IllegalArgumentException("expected device|type|condition...");
+            }
+            List<String> ruleKeywords = new ArrayList<>();
+            List<int[]> groups = new ArrayList<>();
+            int ruleMinPorts = 0;
+            for (int i = 2; i < fields.length; i++) {
+                String condition = fields[i].trim();
+                int equals = condition.indexOf('=');
+                if (equals < 0) {
+                    throw new IllegalArgumentException("condition without '=': " + condition);
+                }
+                String key = condition.substring(0, equals).trim();
+                String value = condition.substring(equals + 1).trim();
+                switch (key) {
+                    case "hostname":
+                        for (String keyword : value.split(",")) {
+                            if (!keyword.isBlank()) {
+                                ruleKeywords.add(keyword.trim().toLowerCase());
+                            }
+                        }
+                        break;
+                    case "services":
+                        for (String group : value.split(",")) {
+                            String[] members = group.split("\\+");
+                            int[] ids = new int[members.length];
+                            for (int m = 0; m < members.length; m++) {
+                                ids[m] = serviceId(members[m].trim());
+                            }
+                            groups.add(ids);
+                        }
+                        break;
+                    case "min-ports":
+                        ruleMinPorts = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown condition '" + key + "'");
+                }
+            }
+            types.add(fields[1].trim());
+            keywords.add(ruleKeywords);
+            serviceGroups.add(groups);
+            minPorts.add(ruleMinPorts);
+        }
+
+        private int serviceId(String service) {
+            return serviceIds.computeIfAbsent(service, s -> serviceIds.size());
+        }
+
+        Catalog build() {
+            return new Catalog(this);
+        }
+    }
+
+    static final class Catalog {
+        final String[] names;
+        final String[] descriptions;
+        final byte[] risks;
+        final int portCount;
+        final Map<String, Integer> serviceIds;
+        final String[] types;
+        final int[] minPorts;
+        final String defaultType;
+        final int maskWords;
+        // Per rule, one mask per alternative; the rule matches if any mask is fully present
+        final long[][][] serviceMasks;
+
+        // Aho-Corasick automaton over lower-case ASCII hostname characters
+        final int[][] transitions;
+        final int[] firstRule;
+
+        Catalog(Builder builder) {
+            this.names = builder.names;
+            this.descriptions = builder.descriptions;
+            this.risks = builder.risks;
+            this.portCount = builder.portCount;
+            this.serviceIds = new HashMap<>(builder.serviceIds);
+            this.types = builder.types.toArray(new String[0]);
+            this.minPorts = builder.minPorts.stream().mapToInt(Integer::intValue).toArray();
+            this.defaultType = builder.defaultType;
+            this.maskWords = Math.max(1, (serviceIds.size() + 63) >>> 6);
+
+            this.serviceMasks = new long[types.length][][];
+            for (int rule = 0; rule < types.length; rule++) {
+                List<int[]> groups = builder.serviceGroups.get(rule);
+                serviceMasks[rule] = new long[groups.size()][];
+                for (int g = 0; g < groups.size(); g++) {
+                    long[] mask = new long[maskWords];
+                    for (int id : groups.get(g)) {
+                        mask[id >>> 6] |= 1L << id;
+                    }
+                    serviceMasks[rule][g] = mask;
+                }
+            }
+
+            // Trie of all keywords, each node remembering the earliest rule ending there
+            List<int[]> nodes = new ArrayList<>();
+            List<Integer> outputs = new ArrayList<>();
+            nodes.add(new int[128]);
+            outputs.add(Integer.MAX_VALUE);
+            for (int rule = 0; rule < types.length; rule++) {
+                for (String keyword : builder.keywords.get(rule)) {
+                    int state = 0;
+                    for (int i = 0; i < keyword.length(); i++) {
+                        int c = keyword.charAt(i) & 0x7f;
+                        if (nodes.get(state)[c] == 0) {
+                            nodes.get(state)[c] = nodes.size();
+                            nodes.add(new int[128]);
+                            outputs.add(Integer.MAX_VALUE);
+                        }
+                        state = nodes.get(state)[c];
+                    }
+                    outputs.set(state, Math.min(outputs.get(state), rule));
+                }
+            }
+
+            // Breadth-first failure links, folded into a full transition table
+            this.transitions = nodes.toArray(new int[0][]);
+            this.firstRule = outputs.stream().mapToInt(Integer::intValue).toArray();
+            int[] fail = new int[transitions.length];
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int c = 0; c < 128; c++) {
+                if (transitions[0][c] != 0) {
+                    queue.add(transitions[0][c]);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                firstRule[state] = Math.min(firstRule[state], firstRule[fail[state]]);
+                for (int c = 0; c < 128; c++) {
+                    int next = transitions[state][c];
+                    if (next != 0) {
+                        fail[next] = transitions[fail[state]][c];
+                        queue.add(next);
+                    } else {
+                        transitions[state][c] = transitions[fail[state]][c];
+                    }
+                }
+            }
+        }
+
+        int firstHostnameRule(String hostname) {
+            int state = 0;
+            int best = firstRule[0];
+            for (int i = 0; i < hostname.length(); i++) {
+                char c = hostname.charAt(i);
+                if (c >= 128) {
+                    state = 0;
+                    continue;
+                }
+                if (c >= 'A' && c <= 'Z') {
+                    c = (char) (c + ('a' - 'A'));
+                }
+                state = transitions[state][c];
+                best = Math.min(best, firstRule[state]);
+            }
+            return best;
+        }
+
+        boolean matchesServices(int rule, long[] present) {
+            for (long[] mask : serviceMasks[rule]) {
+                boolean all = true;
+                for (int w = 0; w < mask.length && all; w++) {
+                    all = (present[w] & mask[w]) == mask[w];
+                }
+                if (all) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.cybersecurex.service;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TCP reachability in the style of RFC 8305 ("Happy Eyeballs"): connection
+ * attempts to each port on every address, address families interleaved, are
+ * started one attempt delay apart (or at once when the previous attempt
+ * failed) and raced on one selector. The first attempt that completes decides
+ * it. A refused connection proves its address is live, since a reset can only
+ * come from a live host, but not that the address serves anything: the race
+ * goes on for the other addresses and the refused address is the result only
+ * when none of them connects. Reachability is therefore known about one round
+ * trip after the first attempt to a live address, instead of after an ICMP or
+ * echo port timeout.
+ */
+final class HappyEyeballs {
+
+    private HappyEyeballs() {
+    }
+
+    /**
+     * Races connects to the ports on the addresses. Ports are tried in the
+     * given order, each across all addresses, so the most likely port on
+     * both families goes first.
+     */
+    static Result race(List<InetAddress> addresses, int[] ports, int attemptDelayMillis, int timeoutMillis) {
+        List<InetSocketAddress> attempts = new ArrayList<>();
+        List<InetAddress> ordered = interleaveFamilies(addresses);
+        for (int port : ports) {
+            for (InetAddress address : ordered) {
+                attempts.add(new InetSocketAddress(address, port));
+            }
+        }
+
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long attemptDelay = TimeUnit.MILLISECONDS.toNanos(Math.max(0, attemptDelayMillis));
+        List<SocketChannel> open = new ArrayList<>();
+        Set<InetAddress> refused = new HashSet<>();
+        Result firstRefused = Result.UNREACHABLE;
+        try (Selector selector = Selector.open()) {
+            int next = 0;
+            int pending = 0;
+            long nextAttemptAt = started;
+            while (!Thread.currentThread().isInterrupted()) {
+                long now = System.nanoTime();
+                if (next < attempts.size() && refused.contains(attempts.get(next).getAddress())) {
+                    next++; // Its address is known to be live; only a connect elsewhere can still change the result
+                    continue;
+                }
+                if (next < attempts.size() && (now - nextAttemptAt >= 0 || pending == 0)) {
+                    InetSocketAddress target = attempts.get(next++);
+                    nextAttemptAt = now + attemptDelay;
+                    try {
+                        SocketChannel channel = SocketChannel.open();
+                        open.add(channel);
+                        channel.configureBlocking(false);
+                        if (channel.connect(target)) {
+                            return new Result(target, true, 0);
+                        }
+                        channel.register(selector, SelectionKey.OP_CONNECT, new Attempt(target, now));
+                        pending++;
+                    } catch (ConnectException e) {
+                        if (refused.isEmpty()) {
+                            firstRefused = new Result(target, false, System.nanoTime() - now);
+                        }
+                        refused.add(target.getAddress());
+                        nextAttemptAt = now;
+                    } catch (IOException e) {
+                        // No route for this family or address; move straight on to the next attempt
+                        nextAttemptAt = now;
+                    }
+                    continue;
+                }
+                if (!refused.isEmpty() && onlyRefusedAddressesLeft(selector, attempts, next, refused)) {
+                    return firstRefused;
+                }
+                if ((pending == 0 && next >= attempts.size()) || now - deadline >= 0) {
+                    return firstRefused;
+                }
+
+                long wakeAt = next < attempts.size() ? Math.min(nextAttemptAt, deadline) : deadline;
+                selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(wakeAt - now)));
+                for (SelectionKey key : selector.selectedKeys()) {
+                    Attempt attempt = (Attempt) key.attachment();
+                    long rtt = System.nanoTime() - attempt.startedAt;
+                    try {
+                        if (((SocketChannel) key.channel()).finishConnect()) {
+                            return new Result(attempt.target, true, rtt);
+                        }
+                    } catch (ConnectException e) {
+                        // Refused: the host answered, but another address may still connect
+                        if (refused.isEmpty()) {
+                            firstRefused = new Result(attempt.target, false, rtt);
+                        }
+                        refused.add(attempt.target.getAddress());
+                        key.cancel();
+                        pending--;
+                        nextAttemptAt = System.nanoTime();
+                    } catch (IOException e) {
+                        // Unreachable or reset without an answer; let the next attempt start now
+                        key.cancel();
+                        pending--;
+                        nextAttemptAt = System.nanoTime();
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+            return firstRefused; // Cancelled
+        } catch (IOException e) {
+            return Result.UNREACHABLE; // No selector available
+        } finally {
+            for (SocketChannel channel : open) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // Abandoned attempt
+                }
+            }
+        }
+    }
+
+    // True when every attempt still pending or not yet started targets an address that already refused
+    private static boolean onlyRefusedAddressesLeft(Selector selector, List<InetSocketAddress> attempts, int next,
+            Set<InetAddress> refused) {
+        for (int i = next; i < attempts.size(); i++) {
+            if (!refused.contains(attempts.get(i).getAddress())) {
+                return false;
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            if (key.isValid() && !refused.contains(((Attempt) key.attachment()).target.getAddress())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Alternates address families, starting with the family the resolver put first
+    private static List<InetAddress> interleaveFamilies(List<InetAddress> addresses) {
+        if (addresses.isEmpty()) {
+            return addresses;
+        }
+        boolean firstIsV6 = addresses.get(0) instanceof Inet6Address;
+        List<InetAddress> preferred = new ArrayList<>();
+        List<InetAddress> other = new ArrayList<>();
+        for (InetAddress address : addresses) {
+            ((address instanceof Inet6Address) == firstIsV6 ? preferred : other).add(address);
+        }
+        List<InetAddress> ordered = new ArrayList<>(addresses.size());
+        for (int i = 0; i < Math.max(preferred.size(), other.size()); i++) {
+            if (i < preferred.size()) {
+                ordered.add(preferred.get(i));
+            }
+            if (i < other.size()) {
+                ordered.add(other.get(i));
+            }
+        }
+        return ordered;
+    }
+
+    private static final class Attempt {
+        final InetSocketAddress target;
+        final long startedAt;
+
+        Attempt(InetSocketAddress target, long startedAt) {
+            this.target = target;
+            this.startedAt = startedAt;
+        }
+    }
+
+    static final class Result {
+        static final Result UNREACHABLE = new Result(null, false, -1);
+
+        // The address and port that connected, else the first that refused, or null when nothing answered
+        final InetSocketAddress endpoint;
+        final boolean portOpen;
+        final long rttNanos;
+
+        Result(InetSocketAddress endpoint, boolean portOpen, long rttNanos) {
+            this.endpoint = endpoint;
+            this.portOpen = portOpen;
+            this.rttNanos = rttNanos;
+        }
+
+        boolean reachable() {
+            return endpoint != null;
+        }
+    }
+}
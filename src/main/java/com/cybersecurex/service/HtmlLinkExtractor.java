@@ -0,0 +1,388 @@
+package com.cybersecurex.service;
+
+import java.io.ByteArrayOutputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Extracts navigable links from an HTML body as it streams in, without
+ * building a document: a small tokenizer state machine runs over each buffer
+ * and keeps only the tag and attribute being read. It collects a/area href,
+ * iframe/frame src, form action and the base href. Comments and script/style
+ * content are skipped. Reading stops after maxBytes, so memory per page stays
+ * flat whatever the page size.
+ */
+final class HtmlLinkExtractor implements HttpResponse.BodySubscriber<HtmlLinkExtractor.Page> {
+
+    private static final int MAX_NAME_CHARS = 16;
+    private static final int MAX_VALUE_BYTES = 2048;
+
+    // Tokenizer states
+    private static final int TEXT = 0;
+    private static final int TAG_OPEN = 1;
+    private static final int TAG_NAME = 2;
+    private static final int BEFORE_ATTRIBUTE = 3;
+    private static final int ATTRIBUTE_NAME = 4;
+    private static final int AFTER_ATTRIBUTE_NAME = 5;
+    private static final int BEFORE_VALUE = 6;
+    private static final int VALUE_DOUBLE_QUOTED = 7;
+    private static final int VALUE_SINGLE_QUOTED = 8;
+    private static final int VALUE_UNQUOTED = 9;
+    private static final int MARKUP = 10;
+    private static final int COMMENT = 11;
+    private static final int DECLARATION = 12;
+    private static final int RAW_TEXT = 13;
+
+    private final long maxBytes;
+    private final int maxLinks;
+    private final CompletableFuture<Page> body = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+
+    private final List<String> links = new ArrayList<>();
+    private String base;
+    private long bytesRead;
+
+    private int state = TEXT;
+    private final StringBuilder tagName = new StringBuilder(MAX_NAME_CHARS);
+    private final StringBuilder attributeName = new StringBuilder(MAX_NAME_CHARS);
+    private final ByteArrayOutputStream value = new ByteArrayOutputStream(128);
+    private boolean endTag;
+    private String linkAttribute; // Attribute holding a link for the current tag, or null
+    private String rawTextEnd; // "</script" or "</style" while inside one
+    private int matched; // Progress through rawTextEnd, or dashes seen in a comment
+
+    HtmlLinkExtractor(long maxBytes, int maxLinks) {
+        this.maxBytes = maxBytes;
+        this.maxLinks = maxLinks;
+    }
+
+    @Override
+    public CompletionStage<Page> getBody() {
+        return body;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> buffers) {
+        if (body.isDone()) {
+            return;
+        }
+        for (ByteBuffer buffer : buffers) {
+            while (buffer.hasRemaining()) {
+                if (bytesRead >= maxBytes || links.size() >= maxLinks) {
+                    subscription.cancel();
+                    body.complete(new Page(links, base, bytesRead, true));
+                    return;
+                }
+                bytesRead++;
+                accept(buffer.get() & 0xff);
+            }
+        }
+        subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        body.completeExceptionally(error);
+    }
+
+    @Override
+    public void onComplete() {
+        body.complete(new Page(links, base, bytesRead, false));
+    }
+
+    private void accept(int c) {
+        switch (state) {
+            case TEXT:
+                if (c == '<') {
+                    state = TAG_OPEN;
+                }
+                break;
+            case TAG_OPEN:
+                if (c == '!') {
+                    state = MARKUP;
+                } else if (c == '/') {
+                    startTag(true);
+                } else if (isLetter(c)) {
+                    startTag(false);
+                    appendName(tagName, c);
+                } else {
+                    state = c == '<' ? TAG_OPEN : TEXT;
+                }
+                break;
+            case TAG_NAME:
+                if (isSpace(c) || c == '/') {
+                    tagNameComplete();
+                    state = BEFORE_ATTRIBUTE;
+                } else if (c == '>') {
+                    tagNameComplete();
+                    endOfTag();
+                } else {
+                    appendName(tagName, c);
+                }
+                break;
+            case BEFORE_ATTRIBUTE:
+                if (c == '>') {
+                    endOfTag();
+                } else if (!isSpace(c) && c != '/') {
+                    startAttribute(c);
+                }
+                break;
+            case ATTRIBUTE_NAME:
+                if (c == '=') {
+                    state = BEFORE_VALUE;
+                } else if (isSpace(c)) {
+                    state = AFTER_ATTRIBUTE_NAME;
+                } else if (c == '>') {
+                    endOfTag();
+                } else if (c == '/') {
+                    state = BEFORE_ATTRIBUTE;
+                } else {
+                    appendName(attributeName, c);
+                }
+                break;
+            case AFTER_ATTRIBUTE_NAME:
+                if (c == '=') {
+                    state = BEFORE_VALUE;
+                } else if (c == '>') {
+                    endOfTag();
+                } else if (!isSpace(c)) {
+                    startAttribute(c);
+                }
+                break;
+            case BEFORE_VALUE:
+                value.reset();
+                if (c == '"') {
+                    state = VALUE_DOUBLE_QUOTED;
+                } else if (c == '\'') {
+                    state = VALUE_SINGLE_QUOTED;
+                } else if (c == '>') {
+                    endOfTag();
+                } else if (!isSpace(c)) {
+                    appendValue(c);
+                    state = VALUE_UNQUOTED;
+                }
+                break;
+            case VALUE_DOUBLE_QUOTED:
+            case VALUE_SINGLE_QUOTED:
+                if (c == (state == VALUE_DOUBLE_QUOTED ? '"' : '\'')) {
+                    attributeComplete();
+                    state = BEFORE_ATTRIBUTE;
+                } else {
+                    appendValue(c);
+                }
+                break;
+            case VALUE_UNQUOTED:
+                if (isSpace(c)) {
+                    attributeComplete();
+                    state = BEFORE_ATTRIBUTE;
+                } else if (c == '>') {
+                    attributeComplete();
+                    endOfTag();
+                } else {
+                    appendValue(c);
+                }
+                break;
+            case MARKUP:
+                // "<!--" opens a comment; any other "<!" is a doctype or declaration
+                if (c == '-') {
+                    matched++;
+                    if (matched == 2) {
+                        matched = 0;
+                        state = COMMENT;
+                    }
+                } else {
+                    matched = 0;
+                    state = c == '>' ? TEXT : DECLARATION;
+                }
+                break;
+            case COMMENT:
+                if (c == '-') {
+                    matched++;
+                } else if (c == '>' && matched >= 2) {
+                    matched = 0;
+                    state = TEXT;
+                } else {
+                    matched = 0;
+                }
+                break;
+            case DECLARATION:
+                if (c == '>') {
+                    state = TEXT;
+                }
+                break;
+            case RAW_TEXT:
+                if (Character.toLowerCase(c) == rawTextEnd.charAt(matched)) {
+                    matched++;
+                    if (matched == rawTextEnd.length()) {
+                        // Consume the rest of the end tag like any other
+                        startTag(true);
+                        tagName.append(rawTextEnd, 2, rawTextEnd.length());
+                        rawTextEnd = null;
+                        matched = 0;
+                    }
+                } else {
+                    matched = c == '<' ? 1 : 0;
+                }
+                break;
+            default:
+                state = TEXT;
+        }
+    }
+
+    private void startTag(boolean isEndTag) {
+        endTag = isEndTag;
+        tagName.setLength(0);
+        linkAttribute = null;
+        state = TAG_NAME;
+    }
+
+    private void tagNameComplete() {
+        linkAttribute = endTag ? null : linkAttribute(tagName);
+    }
+
+    private void startAttribute(int c) {
+        attributeName.setLength(0);
+        appendName(attributeName, c);
+        value.reset();
+        state = ATTRIBUTE_NAME;
+    }
+
+    private void attributeComplete() {
+        if (linkAttribute == null || !linkAttribute.contentEquals(attributeName) || value.size() == 0
+                || value.size() >= MAX_VALUE_BYTES) {
+            return;
+        }
+        String link = decodeEntities(new String(value.toByteArray(), StandardCharsets.UTF_8).trim());
+        if ("base".contentEquals(tagName)) {
+            if (base == null) {
+                base = link;
+            }
+        } else if (!link.isEmpty()) {
+            links.add(link);
+        }
+    }
+
+    private void endOfTag() {
+        state = TEXT;
+        if (!endTag && ("script".contentEquals(tagName) || "style".contentEquals(tagName))) {
+            rawTextEnd = "</" + tagName;
+            matched = 0;
+            state = RAW_TEXT;
+        }
+    }
+
+    private void appendValue(int c) {
+        if (value.size() < MAX_VALUE_BYTES) {
+            value.write(c);
+        }
+    }
+
+    private static void appendName(StringBuilder name, int c) {
+        if (name.length() < MAX_NAME_CHARS) {
+            name.append((char) Character.toLowerCase(c));
+        }
+    }
+
+    private static String linkAttribute(CharSequence tag) {
+        switch (tag.toString()) {
+            case "a":
+            case "area":
+            case "base":
+                return "href";
+            case "iframe":
+            case "frame":
+                return "src";
+            case "form":
+                return "action";
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    // The character references that occur in URLs: &amp; &quot; &apos; &lt; &gt; and numeric ones
+    static String decodeEntities(String text) {
+        int amp = text.indexOf('&');
+        if (amp < 0) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        int i = 0;
+        while (amp >= 0) {
+            sb.append(text, i, amp);
+            int semicolon = text.indexOf(';', amp);
+            String entity = semicolon > amp && semicolon - amp <= 10 ? text.substring(amp + 1, semicolon) : "";
+            String decoded = decodeEntity(entity);
+            if (decoded != null) {
+                sb.append(decoded);
+                i = semicolon + 1;
+            } else {
+                sb.append('&');
+                i = amp + 1;
+            }
+            amp = text.indexOf('&', i);
+        }
+        return sb.append(text, i, text.length()).toString();
+    }
+
+    private static String decodeEntity(String entity) {
+        switch (entity) {
+            case "amp":
+                return "&";
+            case "quot":
+                return "\"";
+            case "apos":
+                return "'";
+            case "lt":
+                return "<";
+            case "gt":
+                return ">";
+            default:
+                break;
+        }
+        try {
+            if (entity.startsWith("#x") || entity.startsWith("#X")) {
+                return new String(Character.toChars(Integer.parseInt(entity.substring(2), 16)));
+            }
+            if (entity.startsWith("#")) {
+                return new String(Character.toChars(Integer.parseInt(entity.substring(1))));
+            }
+        } catch (IllegalArgumentException e) {
+            return null; // Not a valid reference; keep the text as is
+        }
+        return null;
+    }
+
+    static final class Page {
+        final List<String> links;
+        final String base;
+        final long bytes;
+        final boolean truncated;
+
+        Page(List<String> links, String base, long bytes, boolean truncated) {
+            this.links = links;
+            this.base = base;
+            this.bytes = bytes;
+            this.truncated = truncated;
+        }
+    }
+}
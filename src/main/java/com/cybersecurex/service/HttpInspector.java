@@ -0,0 +1,255 @@
+package com.cybersecurex.service;
+
+import javax.net.ssl.*;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.*;
+
+/**
+ * Inspects a website over a single connection: the TLS handshake (when the
+ * URL is https) yields the negotiated protocol, cipher suite and certificate
+ * chain, and a HEAD request on the same socket yields the full response
+ * header set. Untrusted certificates do not abort the handshake; the
+ * validation failure is recorded instead so the chain can still be reported.
+ */
+final class HttpInspector {
+
+    private static final String USER_AGENT = "CyberSecureX-Scanner/1.0";
+    private static final int MAX_HEADER_BYTES = 64 * 1024;
+
+    private HttpInspector() {
+    }
+
+    /**
+     * Connects to the resolved address and inspects the URL. Never throws;
+     * a failure is reported in {@link Inspection#error}.
+     */
+    static Inspection inspect(InetAddress address, String host, int port, boolean tls, String path,
+            int timeoutMillis) {
+        Inspection inspection = new Inspection();
+        Socket socket = new Socket();
+        try {
+            long started = System.nanoTime();
+            socket.connect(new InetSocketAddress(address, port), timeoutMillis);
+            inspection.connectNanos = System.nanoTime() - started;
+            socket.setSoTimeout(timeoutMillis);
+
+            Socket channel = socket;
+            if (tls) {
+                channel = handshake(socket, host, port, inspection);
+            }
+
+            OutputStream out = channel.getOutputStream();
+            String hostHeader = port == (tls ? 443 : 80) ? host : host + ":" + port;
+            String request = "HEAD " + (path == null || path.isEmpty() ? "/" : path) + " HTTP/1.1\r\n"
+                    + "Host: " + hostHeader + "\r\n"
+                    + "User-Agent: " + USER_AGENT + "\r\n"
+                    + "Accept: */*\r\n"
+                    + "Connection: close\r\n\r\n";
+            out.write(request.getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            parseResponse(readHeaderBlock(new BufferedInputStream(channel.getInputStream())), inspection);
+        } catch (IOException | GeneralSecurityException e) {
+            inspection.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Nothing left to read from it
+            }
+        }
+        return inspection;
+    }
+
+    /** TLS handshake only, for reporting whether a plain-HTTP site also serves HTTPS. */
+    static Inspection handshakeOnly(InetAddress address, String host, int port, int timeoutMillis) {
+        Inspection inspection = new Inspection();
+        try (Socket socket = new Socket()) {
+            long started = System.nanoTime();
+            socket.connect(new InetSocketAddress(address, port), timeoutMillis);
+            inspection.connectNanos = System.nanoTime() - started;
+            socket.setSoTimeout(timeoutMillis);
+            handshake(socket, host, port, inspection).close();
+        } catch (IOException | GeneralSecurityException e) {
+            inspection.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+        return inspection;
+    }
+
+    private static SSLSocket handshake(Socket socket, String host, int port, Inspection inspection)
+            throws IOException, GeneralSecurityException {
+        RecordingTrustManager trustManager = new RecordingTrustManager(defaultTrustManager());
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, new TrustManager[] { trustManager }, null);
+
+        SSLSocket sslSocket = (SSLSocket) context.getSocketFactory().createSocket(socket, host, port, true);
+        SSLParameters parameters = sslSocket.getSSLParameters();
+        parameters.setEndpointIdentificationAlgorithm("HTTPS"); // Hostname checked by the trust manager
+        sslSocket.setSSLParameters(parameters);
+        sslSocket.startHandshake();
+
+        SSLSession session = sslSocket.getSession();
+        inspection.tlsProtocol = session.getProtocol();
+        inspection.cipherSuite = session.getCipherSuite();
+        List<X509Certificate> chain = new ArrayList<>();
+        for (Certificate certificate : session.getPeerCertificates()) {
+            if (certificate instanceof X509Certificate) {
+                chain.add((X509Certificate) certificate);
+            }
+        }
+        inspection.certificates = chain;
+        inspection.trustError = trustManager.failure;
+        return sslSocket;
+    }
+
+    private static X509ExtendedTrustManager defaultTrustManager() throws GeneralSecurityException {
+        TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        factory.init((KeyStore) null);
+        for (TrustManager manager : factory.getTrustManagers()) {
+            if (manager instanceof X509ExtendedTrustManager) {
+                return (X509ExtendedTrustManager) manager;
+            }
+        }
+        throw new GeneralSecurityException("No X.509 trust manager available");
+    }
+
+    private static byte[] readHeaderBlock(InputStream in) throws IOException {
+        ByteArrayOutputStream block = new ByteArrayOutputStream(1024);
+        int last = 0; // The most recent bytes, to spot the blank line ending the headers
+        int b;
+        while (block.size() < MAX_HEADER_BYTES && (b = in.read()) >= 0) {
+            block.write(b);
+            last = (last << 8) | b;
+            if (last == 0x0d0a0d0a || (last & 0xffff) == 0x0a0a) {
+                break;
+            }
+        }
+        return block.toByteArray();
+    }
+
+    private static void parseResponse(byte[] block, Inspection inspection) throws IOException {
+        String[] lines = new String(block, StandardCharsets.ISO_8859_1).split("\r?\n");
+        if (lines.length == 0 || !lines[0].startsWith("HTTP/")) {
+            throw new IOException("Not an HTTP response");
+        }
+        String[] status = lines[0].split(" ", 3);
+        if (status.length < 2) {
+            throw new IOException("Malformed status line: " + lines[0]);
+        }
+        try {
+            inspection.responseCode = Integer.parseInt(status[1]);
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed status line: " + lines[0]);
+        }
+
+        String name = null;
+        for (int i = 1; i < lines.length && !lines[i].isEmpty(); i++) {
+            String line = lines[i];
+            if ((line.charAt(0) == ' ' || line.charAt(0) == '\t') && name != null) {
+                // Obsolete line folding continues the previous value
+                inspection.headers.merge(name, line.trim(), (a, b) -> a + " " + b);
+                continue;
+            }
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            name = line.substring(0, colon).trim();
+            inspection.headers.merge(name, line.substring(colon + 1).trim(), (a, b) -> a + ", " + b);
+        }
+    }
+
+    /**
+     * Validates the server chain against the default trust store and host
+     * name, remembering the failure instead of failing the handshake.
+     */
+    private static final class RecordingTrustManager extends X509ExtendedTrustManager {
+        private final X509ExtendedTrustManager delegate;
+        private volatile String failure;
+
+        RecordingTrustManager(X509ExtendedTrustManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) {
+            try {
+                delegate.checkServerTrusted(chain, authType, socket);
+            } catch (CertificateException e) {
+                failure = e.getMessage();
+            }
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+            try {
+                delegate.checkServerTrusted(chain, authType, engine);
+            } catch (CertificateException e) {
+                failure = e.getMessage();
+            }
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+            try {
+                delegate.checkServerTrusted(chain, authType);
+            } catch (CertificateException e) {
+                failure = e.getMessage();
+            }
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket)
+                throws CertificateException {
+            throw new CertificateException("Client certificates are not accepted");
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine)
+                throws CertificateException {
+            throw new CertificateException("Client certificates are not accepted");
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+            throw new CertificateException("Client certificates are not accepted");
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return delegate.getAcceptedIssuers();
+        }
+    }
+
+    static final class Inspection {
+        long connectNanos = -1;
+        int responseCode = -1;
+        // Header names compare case-insensitively; repeated headers are joined with ", "
+        final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        String tlsProtocol;
+        String cipherSuite;
+        List<X509Certificate> certificates = Collections.emptyList();
+        String trustError;
+        String error;
+
+        boolean connected() {
+            return connectNanos >= 0;
+        }
+
+        boolean handshakeCompleted() {
+            return tlsProtocol != null;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.cybersecurex.service;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Inclusive range of IPv4 addresses held as primitive ints (unsigned order).
+ * Accepts CIDR blocks ("10.0.0.0/22"), dash ranges ("10.0.0.5-10.0.0.40")
+ * and single addresses.
+ */
+public final class IpRange {
+
+    private final int first;
+    private final int last;
+
+    private IpRange(int first, int last) {
+        if (Integer.compareUnsigned(first, last) > 0) {
+            throw new IllegalArgumentException("Range start is after range end");
+        }
+        this.first = first;
+        this.last = last;
+    }
+
+    public static IpRange of(int first, int last) {
+        return new IpRange(first, last);
+    }
+
+    public static IpRange parse(String spec) {
+        String value = spec.trim();
+        int slash = value.indexOf('/');
+        if (slash >= 0) {
+            int prefix;
+            try {
+                prefix = Integer.parseInt(value.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid prefix length in " + spec);
+            }
+            return hostsOf(parseAddress(value.substring(0, slash)), prefix);
+        }
+
+        int dash = value.indexOf('-');
+        if (dash >= 0) {
+            return new IpRange(parseAddress(value.substring(0, dash)), parseAddress(value.substring(dash + 1)));
+        }
+
+        int address = parseAddress(value);
+        return new IpRange(address, address);
+    }
+
+    /**
+     * Usable hosts of the network containing {@code address}: the network and
+     * broadcast addresses are excluded for prefixes shorter than /31.
+     */
+    public static IpRange hostsOf(int address, int prefixLength) {
+        if (prefixLength < 0 || prefixLength > 32) {
+            throw new IllegalArgumentException("Prefix length must be between 0 and 32");
+        }
+        int mask = prefixLength == 0 ? 0 : 0xffffffff << (32 - prefixLength);
+        int network = address & mask;
+        int broadcast = network | ~mask;
+        if (prefixLength >= 31) {
+            return new IpRange(network, broadcast);
+        }
+        return new IpRange(network + 1, broadcast - 1);
+    }
+
+    public static int parseAddress(String dotted) {
+        String[] parts = dotted.trim().split("\\.");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Invalid IPv4 address: " + dotted);
+        }
+        int address = 0;
+        for (String part : parts) {
+            int octet;
+            try {
+                octet = Integer.parseInt(part);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid IPv4 address: " + dotted);
+            }
+            if (octet < 0 || octet > 255) {
+                throw new IllegalArgumentException("Invalid IPv4 address: " + dotted);
+            }
+            address = (address << 8) | octet;
+        }
+        return address;
+    }
+
+    public static int toInt(Inet4Address address) {
+        byte[] b = address.getAddress();
+        return ((b[0] & 0xff) << 24) | ((b[1] & 0xff) << 16) | ((b[2] & 0xff) << 8) | (b[3] & 0xff);
+    }
+
+    public static InetAddress toInetAddress(int address) {
+        byte[] bytes = { (byte) (address >>> 24), (byte) (address >>> 16), (byte) (address >>> 8), (byte) address };
+        try {
+            return InetAddress.getByAddress(bytes);
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException(e); // Cannot happen for a 4-byte address
+        }
+    }
+
+    public static String format(int address) {
+        return (address >>> 24) + "." + ((address >>> 16) & 0xff) + "." + ((address >>> 8) & 0xff) + "."
+                + (address & 0xff);
+    }
+
+    public int first() {
+        return first;
+    }
+
+    public int last() {
+        return last;
+    }
+
+    public long size() {
+        return Integer.toUnsignedLong(last) - Integer.toUnsignedLong(first) + 1;
+    }
+
+    public boolean contains(int address) {
+        return Integer.compareUnsigned(address, first) >= 0 && Integer.compareUnsigned(address, last) <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return first == last ? format(first) : format(first) + "-" + format(last);
+    }
+}
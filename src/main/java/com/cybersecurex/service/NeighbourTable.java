@@ -0,0 +1,215 @@
+package com.cybersecurex.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Snapshot of the kernel neighbour (ARP) table keyed by int IPv4 address.
+ * Read from /proc/net/arp, falling back to "ip neigh" and "arp -a" output, and
+ * refreshed at most once per second when a scan asks for an address that was
+ * not resolved yet (probing a host is what populates its ARP entry).
+ */
+final class NeighbourTable {
+
+    private static final Path PROC_ARP = Paths.get("/proc/net/arp");
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final Pattern IPV4 = Pattern.compile("\\b(\\d{1,3}(?:\\.\\d{1,3}){3})\\b");
+    private static final Pattern MAC = Pattern
+            .compile("(?<![0-9A-Fa-f:-])([0-9A-Fa-f]{1,2}(?:[:-][0-9A-Fa-f]{1,2}){5})(?![0-9A-Fa-f:-])");
+
+    private volatile IntStringMap entries;
+    private volatile long loadedAt;
+    private final IntStringMap initial;
+
+    private NeighbourTable() {
+        refresh();
+        initial = entries;
+    }
+
+    static NeighbourTable load() {
+        return new NeighbourTable();
+    }
+
+    String lookup(int address) {
+        String mac = entries.get(address);
+        if (mac == null && System.nanoTime() - loadedAt > REFRESH_INTERVAL_NANOS) {
+            synchronized (this) {
+                if (System.nanoTime() - loadedAt > REFRESH_INTERVAL_NANOS) {
+                    refresh();
+                }
+            }
+            mac = entries.get(address);
+        }
+        return mac;
+    }
+
+    /**
+     * True when the address gained a complete neighbour entry after this table
+     * was loaded, i.e. the host answered the ARP request our probes caused.
+     * Entries that were already present may be stale and prove nothing.
+     */
+    boolean resolvedDuringScan(int address) {
+        return initial.get(address) == null && lookup(address) != null;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Link-local IPv6 neighbours with a known link-layer address, as reported
+     * by "ip -6 neigh". Empty where the tool is unavailable.
+     */
+    static List<Ipv6Neighbour> readIpv6Neighbours() {
+        List<Ipv6Neighbour> neighbours = new ArrayList<>();
+        for (String line : runCommand("ip", "-6", "neigh", "show")) {
+            String[] tokens = line.trim().split("\\s+");
+            if (tokens.length < 5 || !tokens[0].toLowerCase().startsWith("fe80:")) {
+                continue;
+            }
+            String interfaceName = null;
+            String mac = null;
+            for (int i = 1; i < tokens.length - 1; i++) {
+                if ("dev".equals(tokens[i])) {
+                    interfaceName = tokens[i + 1];
+                } else if ("lladdr".equals(tokens[i]) && MAC.matcher(tokens[i + 1]).matches()) {
+                    mac = normalizeMac(tokens[i + 1]);
+                }
+            }
+            if (interfaceName != null && mac != null) {
+                neighbours.add(new Ipv6Neighbour(tokens[0], interfaceName, mac));
+            }
+        }
+        return neighbours;
+    }
+
+    private void refresh() {
+        IntStringMap table = new IntStringMap(256);
+        addLocalInterfaces(table);
+        parse(readNeighbourLines(), table);
+        entries = table;
+        loadedAt = System.nanoTime();
+    }
+
+    static void parse(List<String> lines, IntStringMap into) {
+        for (String line : lines) {
+            Matcher ip = IPV4.matcher(line);
+            Matcher mac = MAC.matcher(line);
+            if (!ip.find() || !mac.find()) {
+                continue;
+            }
+            String normalized = normalizeMac(mac.group(1));
+            if (normalized == null) {
+                continue; // Incomplete entry
+            }
+            try {
+                into.put(IpRange.parseAddress(ip.group(1)), normalized);
+            } catch (IllegalArgumentException ignored) {
+                // Not an address after all
+            }
+        }
+    }
+
+    static String normalizeMac(String raw) {
+        String[] parts = raw.split("[:-]");
+        StringBuilder sb = new StringBuilder(17);
+        boolean allZero = true;
+        for (int i = 0; i < parts.length; i++) {
+            int octet = Integer.parseInt(parts[i], 16);
+            allZero &= octet == 0;
+            if (i > 0) {
+                sb.append(':');
+            }
+            sb.append(Character.toUpperCase(Character.forDigit(octet >> 4, 16)));
+            sb.append(Character.toUpperCase(Character.forDigit(octet & 0xf, 16)));
+        }
+        return allZero ? null : sb.toString();
+    }
+
+    private static List<String> readNeighbourLines() {
+        if (Files.isReadable(PROC_ARP)) {
+            try {
+                return Files.readAllLines(PROC_ARP, StandardCharsets.US_ASCII);
+            } catch (IOException ignored) {
+                // Fall back to the command line tools
+            }
+        }
+        List<String> lines = runCommand("ip", "neigh", "show");
+        return lines.isEmpty() ? runCommand("arp", "-a") : lines;
+    }
+
+    private static List<String> runCommand(String... command) {
+        List<String> lines = new ArrayList<>();
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.US_ASCII))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            }
+            if (!process.waitFor(2, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (IOException e) {
+            // Tool not available on this platform
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return lines;
+    }
+
+    private static void addLocalInterfaces(IntStringMap table) {
+        // The local host never appears in its own neighbour table
+        try {
+            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+            while (interfaces.hasMoreElements()) {
+                NetworkInterface ni = interfaces.nextElement();
+                byte[] mac = ni.getHardwareAddress();
+                if (mac == null || mac.length != 6) {
+                    continue;
+                }
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < mac.length; i++) {
+                    sb.append(String.format("%02X%s", mac[i], (i < mac.length - 1) ? ":" : ""));
+                }
+                for (InterfaceAddress address : ni.getInterfaceAddresses()) {
+                    InetAddress inetAddress = address.getAddress();
+                    if (inetAddress instanceof Inet4Address) {
+                        table.put(IpRange.toInt((Inet4Address) inetAddress), sb.toString());
+                    }
+                }
+            }
+        } catch (IOException ignored) {
+            // No interface information available
+        }
+    }
+
+    static final class Ipv6Neighbour {
+        final String address;
+        final String interfaceName;
+        final String macAddress;
+
+        Ipv6Neighbour(String address, String interfaceName, String macAddress) {
+            this.address = address;
+            this.interfaceName = interfaceName;
+            this.macAddress = macAddress;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.cybersecurex.service;
+
+import java.util.Map;
+
+/**
+ * Receives network scan results as they are produced.
+ */
+@FunctionalInterface
+public interface NetworkScanListener {
+
+    void onDevice(Map<String, Object> device);
+
+    // Called when a device that was already reported gains information, e.g. a late hostname
+    default void onDeviceUpdated(Map<String, Object> device) {
+    }
+}
@@ -0,0 +1,104 @@
+package com.cybersecurex.service;
+
+/**
+ * Per-request options for a network scan. Unset values fall back to the
+ * scanner's configured defaults.
+ */
+public class NetworkScanOptions {
+
+    // Comma separated CIDR blocks, ranges or addresses; empty scans every local network
+    private String targets;
+
+    // Maximum hosts of this scan probed at once; null uses network.scan.max-concurrent-hosts
+    private Integer concurrency;
+
+    // Also discover IPv6 link-local neighbours on local interfaces; null uses network.scan.include-ipv6
+    private Boolean includeIpv6;
+
+    // Port profile: common, top-100, top-1000, full or custom; null uses the common ports
+    private String portProfile;
+
+    // Ports and ranges for the custom profile, e.g. "22,80,8000-8100"
+    private String ports;
+
+    // Read service banners on open ports to identify them; null uses network.fingerprint.enabled
+    private Boolean fingerprint;
+
+    // Compare against the last stored scan of the same targets and report only what changed
+    private Boolean delta;
+
+    // In delta mode, probe every host's full profile now rather than only when
+    // network.delta.full-sweep-interval-ms has passed since the last full sweep
+    private Boolean fullSweep;
+
+    public NetworkScanOptions() {
+    }
+
+    public NetworkScanOptions(String targets) {
+        this.targets = targets;
+    }
+
+    public String getTargets() {
+        return targets;
+    }
+
+    public void setTargets(String targets) {
+        this.targets = targets;
+    }
+
+    public Integer getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(Integer concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public Boolean getIncludeIpv6() {
+        return includeIpv6;
+    }
+
+    public void setIncludeIpv6(Boolean includeIpv6) {
+        this.includeIpv6 = includeIpv6;
+    }
+
+    public String getPortProfile() {
+        return portProfile;
+    }
+
+    public void setPortProfile(String portProfile) {
+        this.portProfile = portProfile;
+    }
+
+    public String getPorts() {
+        return ports;
+    }
+
+    public void setPorts(String ports) {
+        this.ports = ports;
+    }
+
+    public Boolean getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(Boolean fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public Boolean getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Boolean delta) {
+        this.delta = delta;
+    }
+
+    public Boolean getFullSweep() {
+        return fullSweep;
+    }
+
+    public void setFullSweep(Boolean fullSweep) {
+        this.fullSweep = fullSweep;
+    }
+}
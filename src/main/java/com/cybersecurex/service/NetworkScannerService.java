@@ -1,40 +1,260 @@
 package com.cybersecurex.service;
 
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
 import java.net.*;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.stream.IntStream;
 
 @Service
 public class NetworkScannerService {
 
-    private final ExecutorService executor = Executors.newFixedThreadPool(50);
+    private static final String FALLBACK_SUBNET = "192.168.1.0/24";
+
+    private static final int[] COMMON_PORTS = { 21, 22, 23, 25, 53, 80, 110, 135, 139, 143, 443, 445, 993, 995, 1723,
+            3389, 5900, 8080, 8443, 9100 };
+
+    // Raced to decide whether a host is up: web, SSH, SMB/NetBIOS, RDP and the iOS sync port
+    private static final int[] REACHABILITY_PORTS = { 80, 443, 22, 445, 139, 3389, 8080, 62078 };
+
+    // One thread per host of a /24; idle threads are released between scans
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(256, 256, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "network-scan");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    @Autowired
+    private PortScanEngine portScanEngine;
+
+    @Autowired
+    private OuiVendorTable ouiVendorTable;
+
+    @Autowired
+    private ReverseDnsResolver reverseDnsResolver;
+
+    @Autowired
+    private UdpDiscovery udpDiscovery;
+
+    @Autowired
+    private PortProfiles portProfiles;
+
+    @Autowired
+    private ServiceFingerprinter serviceFingerprinter;
+
+    @Autowired
+    private DeviceCatalog deviceCatalog;
+
+    @Autowired
+    private ScanSnapshotService snapshotService;
+
+    @Value("${network.scan.deadline-ms:15000}")
+    private long scanDeadlineMillis;
+
+    // Large port profiles extend the deadline by the probe rounds they need, up to this bound
+    @Value("${network.scan.max-deadline-ms:600000}")
+    private long maxScanDeadlineMillis;
+
+    @Value("${network.ports.max-in-flight:4096}")
+    private int maxPortsInFlight;
+
+    // Delta scans probe every host's full profile only this often; in between, known hosts get
+    // just their known ports and unknown addresses are swept at the reduced concurrency
+    @Value("${network.delta.full-sweep-interval-ms:86400000}")
+    private long fullSweepIntervalMillis;
+
+    @Value("${network.delta.sweep-concurrency:16}")
+    private int deltaSweepConcurrency;
+
+    @Value("${network.scan.max-concurrent-hosts:256}")
+    private int maxConcurrentHosts;
+
+    @Value("${network.scan.exclude-interfaces:docker*,veth*,br-*,virbr*}")
+    private String excludedInterfaces;
+
+    @Value("${network.scan.include-ipv6:false}")
+    private boolean includeIpv6;
+
+    @Value("${network.discovery.enabled:true}")
+    private boolean udpDiscoveryEnabled;
+
+    @Value("${network.fingerprint.enabled:false}")
+    private boolean fingerprintEnabled;
+
+    @Value("${network.fingerprint.timeout-ms:1500}")
+    private int fingerprintTimeoutMillis;
+
+    // Initial probe timeouts, used until the first responses give an RTT estimate
+    @Value("${network.reachability.attempt-delay-ms:25}")
+    private int reachabilityAttemptDelayMillis;
+
+    @Value("${network.probe.host-timeout-ms:1500}")
+    private int hostTimeoutMillis;
+
+    @Value("${network.probe.port-timeout-ms:800}")
+    private int portTimeoutMillis;
+
+    @Value("${network.probe.min-timeout-ms:100}")
+    private int minTimeoutMillis;
+
+    @Value("${network.probe.max-timeout-ms:3000}")
+    private int maxTimeoutMillis;
+
+    public NetworkScannerService() {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Map<String, Object> reloadCatalog() {
+        return deviceCatalog.reload();
+    }
 
     public Map<String, Object> scanLocalNetwork() {
+        return scanNetwork(new NetworkScanOptions());
+    }
+
+    /**
+     * Scans the given targets (comma separated CIDR blocks, ranges or addresses),
+     * or every local network when {@code targets} is empty.
+     */
+    public Map<String, Object> scanNetwork(String targets) {
+        return scanNetwork(new NetworkScanOptions(targets));
+    }
+
+    public Map<String, Object> scanNetwork(NetworkScanOptions options) {
+        List<Map<String, Object>> devices = new ArrayList<>();
+        Map<String, Object> result = scanNetwork(options, devices::add);
+        if ("success".equals(result.get("status"))) {
+            result.put("devices", devices);
+        }
+        return result;
+    }
+
+    /**
+     * Runs the scan on the scanner's own threads, streaming each device to the
+     * listener as it is discovered. The future completes with the summary.
+     */
+    public CompletableFuture<Map<String, Object>> scanNetworkAsync(NetworkScanOptions options,
+            NetworkScanListener listener) {
+        return CompletableFuture.supplyAsync(() -> scanNetwork(options, listener), executor);
+    }
+
+    /**
+     * Scans the targets, handing each reachable device to the listener as soon
+     * as it is found. Hostnames that were still resolving are filled in after
+     * the sweep and reported as updates. The returned summary does not include
+     * the devices.
+     */
+    public Map<String, Object> scanNetwork(NetworkScanOptions options, NetworkScanListener listener) {
         Map<String, Object> result = new HashMap<>();
 
         try {
-            // Get local network info
-            Map<String, String> networkInfo = getNetworkInfo();
-            result.put("networkInfo", networkInfo);
-
-            String subnet = networkInfo.get("subnet");
-            if (subnet == null) {
-                result.put("status", "error");
-                result.put("message", "Could not determine local network subnet");
-                return result;
+            // Every eligible local network, used as the default targets and to tag results
+            List<LocalNetwork> localNetworks = findLocalNetworks();
+            result.put("networkInfo", getNetworkInfo(localNetworks));
+            result.put("interfaces", describe(localNetworks));
+
+            ScanTargets scanTargets = resolveTargets(options.getTargets(), localNetworks);
+            result.put("targets", scanTargets.toString());
+            result.put("hostsScanned", scanTargets.size());
+
+            int[] ports = portProfiles.resolve(options.getPortProfile(), options.getPorts(), COMMON_PORTS);
+            result.put("portsPerHost", ports.length);
+            boolean fingerprint = options.getFingerprint() != null ? options.getFingerprint() : fingerprintEnabled;
+
+            // Delta scans compare against the last stored scan of the same targets
+            String snapshotKey = scanTargets.toString();
+            ScanSnapshotService.Previous previous = Boolean.TRUE.equals(options.getDelta())
+                    ? snapshotService.latest(snapshotKey).orElse(null)
+                    : null;
+            result.put("mode", previous != null ? "delta" : "full");
+            boolean fullSweep = previous == null || Boolean.TRUE.equals(options.getFullSweep())
+                    || previous.lastFullSweep == null
+                    || previous.lastFullSweep.plus(fullSweepIntervalMillis, ChronoUnit.MILLIS)
+                            .isBefore(LocalDateTime.now());
+            result.put("fullSweep", fullSweep);
+            if (previous != null) {
+                result.put("previousScanTime", previous.scanTime.toString());
+                if (previous.lastFullSweep != null) {
+                    result.put("lastFullSweep", previous.lastFullSweep.toString());
+                }
             }
 
-            // Scan for active devices
-            List<Map<String, Object>> devices = scanForDevices(subnet);
-            result.put("devices", devices);
-            result.put("deviceCount", devices.size());
-            result.put("timestamp", new Date().toString());
-            result.put("status", "success");
-            result.put("message", "Network scan completed successfully!");
+            // Read the neighbour table once; it is only re-read when a new host shows up
+            NeighbourTable neighbours = NeighbourTable.load();
+
+            // Timeouts adapt to each host's measured RTT. Host concurrency starts at a quarter of
+            // the limit and backs off when answering hosts stop answering; all interfaces share it
+            int concurrency = options.getConcurrency() != null && options.getConcurrency() > 0
+                    ? options.getConcurrency()
+                    : maxConcurrentHosts;
+            int hostWindow = Math.min(concurrency, maxConcurrentHosts);
+            int initialWindow = Math.max(1, hostWindow / 4);
+            // Port scans stop a little before the scan deadline, so a host whose ports are still
+            // being probed is reported as partial rather than dropped
+            long deadlineMillis = scanDeadlineMillis(scanTargets.size(), ports.length);
+            long portsDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(
+                    deadlineMillis - Math.min(2000, deadlineMillis / 10));
+            result.put("deadlineMs", deadlineMillis);
+            ScanContext context = new ScanContext(neighbours, localNetworks,
+                    new AdaptiveProbeController(hostTimeoutMillis, minTimeoutMillis, maxTimeoutMillis,
+                            initialWindow, hostWindow),
+                    new AdaptiveProbeController(portTimeoutMillis, minTimeoutMillis, maxTimeoutMillis,
+                            initialWindow, hostWindow),
+                    ports, fingerprint, startUdpDiscovery(localNetworks, scanTargets),
+                    previous != null ? previous.hosts : null, !fullSweep, portsDeadline);
+            boolean ipv6 = options.getIncludeIpv6() != null ? options.getIncludeIpv6() : includeIpv6;
+
+            // Scan for active devices under one overall deadline. Port probe losses on live hosts
+            // throttle the sweep as much as lost reachability answers
+            Executor hostExecutor = new ThrottledExecutor(executor,
+                    () -> Math.min(context.hostProbes.window(), context.portProbes.window()));
+            Executor sweepExecutor = context.knownPortsOnly
+                    ? new ThrottledExecutor(hostExecutor, Math.max(1, deltaSweepConcurrency))
+                    : hostExecutor;
+            try (ScanScope<HostResult> scope = new ScanScope<>(hostExecutor, deadlineMillis)) {
+                if (ipv6) {
+                    forkIpv6Neighbours(context, scope);
+                }
+                int deviceCount = scanForDevices(scanTargets, context, scope, sweepExecutor, listener);
+                result.put("deviceCount", deviceCount);
+                if (previous != null) {
+                    result.put("changedCount", context.changedCount);
+                    result.put("unchangedCount", context.unchangedCount);
+                    // Absent hosts are only known to be gone if both scans covered every host
+                    boolean complete = previous.complete && !scope.isDeadlineReached() && context.partialCount == 0;
+                    result.put("removedDevices", complete ? removedDevices(previous.hosts, scanTargets)
+                            : Collections.emptyList());
+                }
+                boolean cutShort = scope.isDeadlineReached() || context.partialCount > 0;
+                LocalDateTime lastFullSweep = fullSweep && !cutShort ? LocalDateTime.now()
+                        : previous != null ? previous.lastFullSweep : null;
+                snapshotService.save(snapshotKey, context.current, !cutShort, lastFullSweep);
+                result.put("deadlineReached", cutShort);
+                result.put("partialHosts", context.partialCount);
+                result.put("probeTiming", context.hostProbes.stats());
+                result.put("udpResponders", context.discovery.getNow(Collections.emptyMap()).size());
+                result.put("timestamp", new Date().toString());
+                result.put("status", "success");
+                result.put("message", cutShort
+                        ? "Network scan deadline reached - showing devices found so far"
+                        : "Network scan completed successfully!");
+            }
 
+        } catch (IllegalArgumentException e) {
+            result.put("status", "error");
+            result.put("message", "Invalid scan options: " + e.getMessage());
         } catch (Exception e) {
             result.put("status", "error");
             result.put("message", "Error scanning network: " + e.getMessage());
@@ -43,49 +263,141 @@ public class NetworkScannerService {
         return result;
     }
 
-    private Map<String, String> getNetworkInfo() throws SocketException {
-        Map<String, String> info = new HashMap<>();
+    /**
+     * The deadline a scan with these options runs under, so that a caller
+     * streaming its results can outlast it. Options that do not parse get the
+     * maximum deadline; the scan itself reports the error.
+     */
+    public long scanDeadlineMillis(NetworkScanOptions options) {
+        try {
+            ScanTargets scanTargets = resolveTargets(options.getTargets(), findLocalNetworks());
+            int[] ports = portProfiles.resolve(options.getPortProfile(), options.getPorts(), COMMON_PORTS);
+            return scanDeadlineMillis(scanTargets.size(), ports.length);
+        } catch (SocketException | RuntimeException e) {
+            return Math.max(scanDeadlineMillis, maxScanDeadlineMillis);
+        }
+    }
+
+    // The given targets, or every eligible local network when none are given
+    private static ScanTargets resolveTargets(String targets, List<LocalNetwork> localNetworks) {
+        if (targets != null && !targets.isBlank()) {
+            return ScanTargets.parse(targets);
+        }
+        List<IpRange> ranges = new ArrayList<>();
+        for (LocalNetwork network : localNetworks) {
+            ranges.add(network.hosts);
+        }
+        return ranges.isEmpty() ? ScanTargets.parse(FALLBACK_SUBNET) : new ScanTargets(ranges);
+    }
+
+    // The configured deadline plus one port timeout per round of in-flight probes the profile needs
+    // on every host, bounded by the maximum; common profiles on a /24 stay near the configured value
+    private long scanDeadlineMillis(long hosts, int portsPerHost) {
+        long rounds = (hosts * portsPerHost + maxPortsInFlight - 1) / Math.max(1, maxPortsInFlight);
+        long deadline = scanDeadlineMillis + rounds * portTimeoutMillis;
+        return Math.max(scanDeadlineMillis, Math.min(deadline, maxScanDeadlineMillis));
+    }
+
+    // Multicast and broadcast queries on the local networks the targets touch, run alongside the sweep
+    private CompletableFuture<Map<Integer, UdpDiscovery.Responder>> startUdpDiscovery(
+            List<LocalNetwork> localNetworks, ScanTargets targets) {
+        Set<String> interfaceNames = new LinkedHashSet<>();
+        List<Inet4Address> broadcasts = new ArrayList<>();
+        for (LocalNetwork network : localNetworks) {
+            for (IpRange range : targets.ranges()) {
+                if (Integer.compareUnsigned(range.first(), network.fullNetwork.last()) <= 0
+                        && Integer.compareUnsigned(range.last(), network.fullNetwork.first()) >= 0) {
+                    interfaceNames.add(network.name);
+                    if (network.broadcast != null) {
+                        broadcasts.add(network.broadcast);
+                    }
+                    break;
+                }
+            }
+        }
+        if (!udpDiscoveryEnabled || interfaceNames.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+        return CompletableFuture.supplyAsync(() -> udpDiscovery.discover(interfaceNames, broadcasts), executor)
+                .exceptionally(error -> Collections.emptyMap());
+    }
+
+    private List<LocalNetwork> findLocalNetworks() throws SocketException {
+        List<LocalNetwork> networks = new ArrayList<>();
 
         Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
         while (interfaces.hasMoreElements()) {
             NetworkInterface networkInterface = interfaces.nextElement();
 
-            if (!networkInterface.isLoopback() && networkInterface.isUp() && !networkInterface.isVirtual()) {
+            if (!networkInterface.isLoopback() && networkInterface.isUp() && !networkInterface.isVirtual()
+                    && !isExcluded(networkInterface.getName())) {
                 for (InterfaceAddress address : networkInterface.getInterfaceAddresses()) {
                     InetAddress inetAddress = address.getAddress();
 
                     if (inetAddress instanceof Inet4Address && !inetAddress.isLoopbackAddress()) {
-                        String ip = inetAddress.getHostAddress();
-                        String networkName = networkInterface.getDisplayName();
-
-                        // Calculate subnet
-                        String subnet = calculateSubnet(ip, address.getNetworkPrefixLength());
-
-                        info.put("localIP", ip);
-                        info.put("networkInterface", networkName);
-                        info.put("subnet", subnet);
-                        info.put("subnetMask", getSubnetMask(address.getNetworkPrefixLength()));
-
-                        return info; // Return first valid network
+                        networks.add(new LocalNetwork(networkInterface.getName(),
+                                networkInterface.getDisplayName(), (Inet4Address) inetAddress,
+                                address.getNetworkPrefixLength(), address.getBroadcast()));
                     }
                 }
             }
         }
 
-        // Fallback
-        info.put("subnet", "192.168.1");
+        return networks;
+    }
+
+    private boolean isExcluded(String interfaceName) {
+        for (String pattern : excludedInterfaces.split(",")) {
+            String p = pattern.trim();
+            if (p.isEmpty()) {
+                continue;
+            }
+            boolean matches = p.endsWith("*")
+                    ? interfaceName.startsWith(p.substring(0, p.length() - 1))
+                    : interfaceName.equals(p);
+            if (matches) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Summary of the first network, kept in the shape the UI already displays
+    private Map<String, String> getNetworkInfo(List<LocalNetwork> networks) {
+        Map<String, String> info = new HashMap<>();
+        if (networks.isEmpty()) {
+            // Fallback
+            info.put("subnet", FALLBACK_SUBNET);
+            return info;
+        }
+
+        LocalNetwork network = networks.get(0);
+        info.put("localIP", network.localIP);
+        info.put("networkInterface", network.displayName);
+        info.put("subnet", network.subnet);
+        info.put("subnetMask", getSubnetMask(network.prefixLength));
         return info;
     }
 
-    private String calculateSubnet(String ip, short prefixLength) {
-        String[] parts = ip.split("\\.");
-        if (prefixLength >= 24) {
-            return parts[0] + "." + parts[1] + "." + parts[2];
-        } else if (prefixLength >= 16) {
-            return parts[0] + "." + parts[1];
-        } else {
-            return parts[0];
+    private List<Map<String, String>> describe(List<LocalNetwork> networks) {
+        List<Map<String, String>> interfaces = new ArrayList<>();
+        for (LocalNetwork network : networks) {
+            Map<String, String> info = new HashMap<>();
+            info.put("name", network.name);
+            info.put("displayName", network.displayName);
+            info.put("localIP", network.localIP);
+            info.put("subnet", network.subnet);
+            info.put("subnetMask", getSubnetMask(network.prefixLength));
+            interfaces.add(info);
         }
+        return interfaces;
+    }
+
+    private static String calculateSubnet(Inet4Address address, short prefixLength) {
+        // Very large interface networks are narrowed to the /16 around this host
+        int prefix = Math.max(prefixLength, 16);
+        int mask = 0xffffffff << (32 - prefix);
+        return IpRange.format(IpRange.toInt(address) & mask) + "/" + prefix;
     }
 
     private String getSubnetMask(short prefixLength) {
@@ -95,235 +407,382 @@ public class NetworkScannerService {
                 (mask >> 8) & 0xff, mask & 0xff);
     }
 
-    private List<Map<String, Object>> scanForDevices(String subnet) {
-        List<Map<String, Object>> devices = new ArrayList<>();
-        List<Future<Map<String, Object>>> futures = new ArrayList<>();
-
-        // Scan IP range (1-254)
-        for (int i = 1; i <= 254; i++) {
-            String ip = subnet + "." + i;
-            futures.add(executor.submit(() -> scanSingleDevice(ip)));
+    private int scanForDevices(ScanTargets targets, ScanContext context, ScanScope<HostResult> scope,
+            Executor sweepExecutor, NetworkScanListener listener) throws InterruptedException {
+        // One task per host; dead hosts allocate nothing beyond their task. Ranges are
+        // interleaved so every network is swept concurrently rather than one after another.
+        List<IpRange> ranges = targets.ranges();
+        long[] offsets = new long[ranges.size()];
+        long longest = 0;
+        for (int r = 1; r < ranges.size(); r++) {
+            offsets[r] = offsets[r - 1] + ranges.get(r - 1).size();
+        }
+        for (IpRange range : ranges) {
+            longest = Math.max(longest, range.size());
+        }
+        // Delta scans confirm last scan's live hosts first; the sweep of the rest queues behind them,
+        // on its own smaller budget between full sweeps
+        NetworkSnapshot previous = context.previous;
+        BitSet known = new BitSet(targets.size());
+        if (previous != null) {
+            for (NetworkSnapshot.Host host : previous.hosts()) {
+                int index = targets.indexOf(host.address);
+                if (index >= 0) {
+                    known.set(index);
+                    forkHost(host.address, context, scope, null);
+                }
+            }
+        }
+        for (long k = 0; k < longest; k++) {
+            for (int r = 0; r < ranges.size(); r++) {
+                if (k >= ranges.get(r).size()) {
+                    continue;
+                }
+                if (!known.get((int) (offsets[r] + k))) {
+                    forkHost(ranges.get(r).first() + (int) k, context, scope, sweepExecutor);
+                }
+            }
         }
 
-        // Collect results with timeout
-        for (Future<Map<String, Object>> future : futures) {
-            try {
-                Map<String, Object> device = future.get(2, TimeUnit.SECONDS);
-                if (device != null && (Boolean) device.get("reachable")) {
-                    devices.add(device);
+        // Report devices as they answer until every host is done or the deadline passed
+        // Reported IPv4 hosts are recorded in the targets' live bitset; IPv6 neighbours have no index there
+        List<HostResult> pendingHostnames = new ArrayList<>();
+        int[] ipv6Devices = new int[1];
+        scope.join(host -> {
+            if (host.address != null) {
+                targets.markLive(targets.indexOf(host.address));
+            } else {
+                ipv6Devices[0]++;
+            }
+            if (Boolean.FALSE.equals(host.device.get("portScanComplete"))) {
+                context.partialCount++;
+            }
+            if (!host.changed) {
+                context.unchangedCount++;
+                return;
+            }
+            context.changedCount++;
+            listener.onDevice(host.device);
+            if (host.hostnameLookup != null) {
+                pendingHostnames.add(host);
+            }
+        });
+
+        // Fill in hostnames that were still resolving; each lookup is bounded by the resolver timeout
+        for (HostResult host : pendingHostnames) {
+            String hostname = host.hostnameLookup.join();
+            host.device.put("hostnamePending", false);
+            if (hostname != null) {
+                host.device.put("hostname", hostname);
+                String deviceType = guessDeviceType(hostname, host.openPorts);
+                host.device.put("deviceType", deviceType);
+                if (host.address != null) {
+                    context.current.updateDeviceType(host.address, deviceType);
                 }
-            } catch (Exception e) {
-                // Skip failed scans
+                listener.onDeviceUpdated(host.device);
             }
         }
 
-        return devices;
+        return targets.liveCount() + ipv6Devices[0];
     }
 
-    private Map<String, Object> scanSingleDevice(String ip) {
-        Map<String, Object> device = new HashMap<>();
+    // A null executor runs the host on the scope's own executor
+    private void forkHost(int address, ScanContext context, ScanScope<HostResult> scope, Executor executor) {
+        Callable<HostResult> task = () -> scanSingleDevice(address, context);
+        if (executor == null) {
+            scope.fork(task);
+        } else {
+            scope.fork(task, executor);
+        }
+    }
+
+    private List<Map<String, Object>> removedDevices(NetworkSnapshot previous, ScanTargets targets) {
+        List<Map<String, Object>> removed = new ArrayList<>();
+        for (NetworkSnapshot.Host host : previous.hosts()) {
+            int index = targets.indexOf(host.address);
+            if (index < 0 || !targets.isLive(index)) {
+                Map<String, Object> device = new HashMap<>();
+                device.put("ip", IpRange.format(host.address));
+                device.put("macAddress", host.macAddress != null ? host.macAddress : "Unknown");
+                device.put("deviceType", host.deviceType);
+                device.put("change", "removed");
+                removed.add(device);
+            }
+        }
+        return removed;
+    }
 
+    private HostResult scanSingleDevice(int ipAddress, ScanContext context) {
         try {
-            InetAddress address = InetAddress.getByName(ip);
-            boolean reachable = address.isReachable(1500); // 1.5 second timeout
+            String ip = IpRange.format(ipAddress);
+            NetworkSnapshot.Host known = context.previous != null ? context.previous.get(ipAddress) : null;
+            DevicePorts scanned = null;
+
+            // Between full sweeps a known host is probed on its known ports only
+            int[] probedPorts = known != null && context.knownPortsOnly
+                    ? knownProfilePorts(context.ports, known.ports)
+                    : context.ports;
+
+            // A host that already answered UDP discovery needs no reachability race, and neither
+            // does a previously live host whose known ports answer again
+            UdpDiscovery.Responder responder = context.discovery.getNow(Collections.emptyMap()).get(ipAddress);
+            if (responder == null && known != null && known.ports.length > 0) {
+                scanned = scanDevicePorts(ip, context, probedPorts);
+            }
+            if (responder == null && (scanned == null || scanned.openPorts.isEmpty())) {
+                InetAddress target = IpRange.toInetAddress(ipAddress);
+                HappyEyeballs.Result race = HappyEyeballs.race(Collections.singletonList(target),
+                        REACHABILITY_PORTS, reachabilityAttemptDelayMillis, context.hostProbes.timeoutMillis(target));
+                if (race.reachable()) {
+                    context.hostProbes.onResponse(target, race.rttNanos);
+                    context.portProbes.onResponse(target, race.rttNanos);
+                } else {
+                    if (!Thread.currentThread().isInterrupted()) {
+                        context.hostProbes.onTimeout(target);
+                    }
+                    if (!context.neighbours.resolvedDuringScan(ipAddress)) {
+                        // Silent to TCP and not on-link; it may still have answered a discovery query
+                        responder = context.discovery.join().get(ipAddress);
+                        if (responder == null) {
+                            return null;
+                        }
+                    }
+                }
+            }
 
+            // Stop early if the scan deadline cancelled this probe
+            if (Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+
+            // Start the reverse lookup now so it overlaps the port scan
+            CompletableFuture<String> hostnameLookup = reverseDnsResolver.resolve(ipAddress);
+
+            Map<String, Object> device = new HashMap<>();
             device.put("ip", ip);
-            device.put("reachable", reachable);
+            device.put("reachable", true);
+            device.put("interface", context.interfaceOf(ipAddress));
+
+            // Get MAC address and vendor from the neighbour table (best effort)
+            String macAddress = context.neighbours.lookup(ipAddress);
+            String vendor = ouiVendorTable.lookup(macAddress);
+            device.put("macAddress", macAddress != null ? macAddress : "Unknown");
+            device.put("vendor", vendor != null ? vendor : "Unknown");
+
+            // Scan the profile's ports unless a delta probe already did
+            if (scanned == null) {
+                scanned = scanDevicePorts(ip, context, probedPorts);
+            }
+            List<Map<String, Object>> openPorts = scanned.openPorts;
+            device.put("openPorts", openPorts);
+            device.put("portCount", openPorts.size());
+            device.put("portScanComplete", scanned.complete);
 
-            if (reachable) {
-                // Get hostname
-                String hostname = getHostname(address);
-                device.put("hostname", hostname);
+            if (responder != null) {
+                device.put("udpDiscovery", responder.toMap());
+            }
 
-                // Get MAC address (best effort)
-                String macAddress = getMacAddress(ip);
-                device.put("macAddress", macAddress);
+            // Use the hostname if it has arrived, else a NetBIOS/mDNS name; a PTR name arriving later replaces it
+            String hostname = hostnameLookup.getNow(null);
+            if (hostname == null && responder != null) {
+                hostname = responder.getName();
+            }
+            boolean hostnamePending = !hostnameLookup.isDone();
+            device.put("hostname", hostname != null ? hostname : "Unknown");
+            device.put("hostnamePending", hostnamePending);
 
-                // Scan common ports
-                List<Map<String, Object>> openPorts = scanDevicePorts(ip);
-                device.put("openPorts", openPorts);
-                device.put("portCount", openPorts.size());
+            // Guess device type based on ports and hostname
+            String deviceType = guessDeviceType(hostname != null ? hostname : "Unknown", openPorts);
+            device.put("deviceType", deviceType);
 
-                // Guess device type based on ports and hostname
-                String deviceType = guessDeviceType(hostname, openPorts);
-                device.put("deviceType", deviceType);
+            // Security assessment
+            List<String> securityNotes = assessDeviceSecurity(openPorts);
+            device.put("securityNotes", securityNotes);
 
-                // Security assessment
-                List<String> securityNotes = assessDeviceSecurity(openPorts);
-                device.put("securityNotes", securityNotes);
+            // Record the host for the next delta scan and report whether it differs from the last one
+            if (macAddress == null && known != null) {
+                macAddress = known.macAddress;
             }
+            if (hostnamePending && known != null) {
+                deviceType = known.deviceType; // Provisional type; the final one is recorded once the name arrives
+            }
+            // Only probed ports can show up as closed: a partial scan keeps every known port, and
+            // a known-ports-only probe keeps the known ports outside this profile
+            int[] confirmedPorts = scanned.complete ? probedPorts : new int[0];
+            int[] recordedPorts = portNumbers(openPorts);
+            if (known != null) {
+                IntStream unconfirmed = IntStream.of(known.ports).filter(port -> !contains(confirmedPorts, port));
+                recordedPorts = IntStream.concat(IntStream.of(recordedPorts), unconfirmed)
+                        .distinct().sorted().toArray();
+            }
+            context.current.put(ipAddress, macAddress, deviceType, recordedPorts);
+            boolean changed = context.previous == null || describeChanges(device, known, macAddress, deviceType,
+                    openPorts, confirmedPorts);
+
+            return new HostResult(device, openPorts, hostnamePending ? hostnameLookup : null, ipAddress, changed);
 
         } catch (Exception e) {
-            device.put("reachable", false);
-            device.put("error", e.getMessage());
+            return null; // Treat probe failures as unreachable
         }
+    }
 
-        return device;
+    // IPv6 link-local neighbours cannot be swept, so probe the ones the kernel already knows
+    private void forkIpv6Neighbours(ScanContext context, ScanScope<HostResult> scope) {
+        Set<String> interfaceNames = new HashSet<>();
+        for (LocalNetwork network : context.localNetworks) {
+            interfaceNames.add(network.name);
+        }
+        for (NeighbourTable.Ipv6Neighbour neighbour : NeighbourTable.readIpv6Neighbours()) {
+            if (interfaceNames.contains(neighbour.interfaceName)) {
+                scope.fork(() -> scanIpv6Neighbour(neighbour, context));
+            }
+        }
     }
 
-    private String getHostname(InetAddress address) {
-        try {
-            String hostname = address.getHostName();
-            if (!hostname.equals(address.getHostAddress())) {
-                return hostname;
+    private HostResult scanIpv6Neighbour(NeighbourTable.Ipv6Neighbour neighbour, ScanContext context) {
+        String ip = neighbour.address + "%" + neighbour.interfaceName;
+        String vendor = ouiVendorTable.lookup(neighbour.macAddress);
+
+        Map<String, Object> device = new HashMap<>();
+        device.put("ip", ip);
+        device.put("reachable", true);
+        device.put("addressFamily", "IPv6");
+        device.put("interface", neighbour.interfaceName);
+        device.put("macAddress", neighbour.macAddress);
+        device.put("vendor", vendor != null ? vendor : "Unknown");
+        device.put("hostname", "Unknown");
+        device.put("hostnamePending", false);
+
+        DevicePorts scanned = scanDevicePorts(ip, context, context.ports);
+        List<Map<String, Object>> openPorts = scanned.openPorts;
+        device.put("openPorts", openPorts);
+        device.put("portCount", openPorts.size());
+        device.put("portScanComplete", scanned.complete);
+        device.put("deviceType", guessDeviceType("Unknown", openPorts));
+        device.put("securityNotes", assessDeviceSecurity(openPorts));
+
+        // Not kept in snapshots, which are keyed by IPv4 address; always reported
+        return new HostResult(device, openPorts, null, null, true);
+    }
+
+    // The known open ports that are in this scan's profile
+    private static int[] knownProfilePorts(int[] ports, int[] knownPorts) {
+        return IntStream.of(ports).filter(port -> Arrays.binarySearch(knownPorts, port) >= 0).toArray();
+    }
+
+    private static int[] portNumbers(List<Map<String, Object>> openPorts) {
+        int[] ports = new int[openPorts.size()];
+        for (int i = 0; i < ports.length; i++) {
+            ports[i] = (Integer) openPorts.get(i).get("port");
+        }
+        return ports;
+    }
+
+    /**
+     * Marks the device as new or changed relative to its previous snapshot and
+     * returns whether anything changed. Ports outside this scan's profile are
+     * not reported as closed, and an unresolved MAC address is not a change.
+     */
+    private boolean describeChanges(Map<String, Object> device, NetworkSnapshot.Host known, String macAddress,
+            String deviceType, List<Map<String, Object>> openPorts, int[] scannedPorts) {
+        if (known == null) {
+            device.put("change", "new");
+            return true;
+        }
+        int[] current = portNumbers(openPorts);
+        Arrays.sort(current);
+        List<Integer> opened = new ArrayList<>();
+        for (int port : current) {
+            if (Arrays.binarySearch(known.ports, port) < 0) {
+                opened.add(port);
             }
-        } catch (Exception e) {
-            // Fallback to reverse DNS
         }
-        return "Unknown";
+        List<Integer> closed = new ArrayList<>();
+        for (int port : known.ports) {
+            if (Arrays.binarySearch(current, port) < 0 && contains(scannedPorts, port)) {
+                closed.add(port);
+            }
+        }
+        boolean macChanged = macAddress != null && known.macAddress != null
+                && !macAddress.equals(known.macAddress);
+        boolean typeChanged = !Objects.equals(deviceType, known.deviceType);
+        if (opened.isEmpty() && closed.isEmpty() && !macChanged && !typeChanged) {
+            return false;
+        }
+        device.put("change", "changed");
+        device.put("openedPorts", opened);
+        device.put("closedPorts", closed);
+        if (macChanged) {
+            device.put("previousMacAddress", known.macAddress);
+        }
+        if (typeChanged) {
+            device.put("previousDeviceType", known.deviceType);
+        }
+        return true;
     }
 
-    private String getMacAddress(String ip) {
-        try {
-            // This is a simplified approach - MAC addresses are typically only
-            // available for devices on the same network segment
-            InetAddress address = InetAddress.getByName(ip);
-            NetworkInterface ni = NetworkInterface.getByInetAddress(address);
-            if (ni != null) {
-                byte[] mac = ni.getHardwareAddress();
-                if (mac != null) {
-                    StringBuilder sb = new StringBuilder();
-                    for (int i = 0; i < mac.length; i++) {
-                        sb.append(String.format("%02X%s", mac[i], (i < mac.length - 1) ? ":" : ""));
-                    }
-                    return sb.toString();
-                }
+    private static boolean contains(int[] ports, int port) {
+        // Profiles are sorted, but a delta probe may have reordered them
+        for (int p : ports) {
+            if (p == port) {
+                return true;
             }
-        } catch (Exception e) {
-            // MAC address not available
         }
-        return "Unknown";
+        return false;
     }
 
-    private List<Map<String, Object>> scanDevicePorts(String ip) {
+    private DevicePorts scanDevicePorts(String ip, ScanContext context, int[] ports) {
         List<Map<String, Object>> openPorts = new ArrayList<>();
-        int[] commonPorts = { 21, 22, 23, 25, 53, 80, 110, 135, 139, 143, 443, 445, 993, 995, 1723, 3389, 5900, 8080,
-                8443, 9100 };
-
-        for (int port : commonPorts) {
-            try (Socket socket = new Socket()) {
-                socket.connect(new InetSocketAddress(ip, port), 800); // 800ms timeout
-
-                Map<String, Object> portInfo = new HashMap<>();
-                portInfo.put("port", port);
-                portInfo.put("service", getServiceName(port));
-                portInfo.put("description", getServiceDescription(port));
-                portInfo.put("riskLevel", getPortRiskLevel(port));
-
-                openPorts.add(portInfo);
-            } catch (IOException ignored) {
-                // Port closed or filtered
-            }
-        }
-
-        return openPorts;
-    }
-
-    private String getServiceName(int port) {
-        Map<Integer, String> services = new HashMap<>();
-        services.put(21, "FTP");
-        services.put(22, "SSH");
-        services.put(23, "Telnet");
-        services.put(25, "SMTP");
-        services.put(53, "DNS");
-        services.put(80, "HTTP");
-        services.put(110, "POP3");
-        services.put(135, "RPC");
-        services.put(139, "NetBIOS");
-        services.put(143, "IMAP");
-        services.put(443, "HTTPS");
-        services.put(445, "SMB");
-        services.put(993, "IMAPS");
-        services.put(995, "POP3S");
-        services.put(1723, "PPTP");
-        services.put(3389, "RDP");
-        services.put(5900, "VNC");
-        services.put(8080, "HTTP-Alt");
-        services.put(8443, "HTTPS-Alt");
-        services.put(9100, "Printer");
-
-        return services.getOrDefault(port, "Unknown");
-    }
-
-    private String getServiceDescription(int port) {
-        Map<Integer, String> descriptions = new HashMap<>();
-        descriptions.put(21, "File Transfer Protocol");
-        descriptions.put(22, "Secure Shell");
-        descriptions.put(23, "Telnet (Unencrypted)");
-        descriptions.put(25, "Email Server");
-        descriptions.put(53, "Domain Name System");
-        descriptions.put(80, "Web Server");
-        descriptions.put(110, "Email Retrieval");
-        descriptions.put(135, "Windows RPC");
-        descriptions.put(139, "Windows File Sharing");
-        descriptions.put(143, "Email Server");
-        descriptions.put(443, "Secure Web Server");
-        descriptions.put(445, "Windows File Sharing");
-        descriptions.put(993, "Secure Email");
-        descriptions.put(995, "Secure Email");
-        descriptions.put(1723, "VPN Server");
-        descriptions.put(3389, "Remote Desktop");
-        descriptions.put(5900, "Remote Desktop");
-        descriptions.put(8080, "Web Server");
-        descriptions.put(8443, "Secure Web Server");
-        descriptions.put(9100, "Network Printer");
-
-        return descriptions.getOrDefault(port, "Unknown Service");
-    }
-
-    private String getPortRiskLevel(int port) {
-        // High risk ports
-        if (port == 23 || port == 21 || port == 135 || port == 139 || port == 445) {
-            return "HIGH";
-        }
-        // Medium risk ports
-        if (port == 22 || port == 3389 || port == 5900 || port == 1723) {
-            return "MEDIUM";
-        }
-        // Low risk ports
-        return "LOW";
+
+        // The profile's ports are probed concurrently by the shared engine with RTT-derived timeouts
+        if (!context.fingerprint) {
+            PortScanEngine.PortScan scan = portScanEngine.scanPorts(ip, ports, context.portProbes,
+                    context.portsDeadlineNanos);
+            for (int port : scan.getOpenPorts()) {
+                openPorts.add(describePort(port, null));
+            }
+            return new DevicePorts(openPorts, scan.isComplete());
+        }
+
+        // Banners are read on the connections that found the ports open, all ports at once
+        PortScanEngine.PortScan scan = portScanEngine.scanServices(ip, ports, context.portProbes,
+                fingerprintTimeoutMillis, context.portsDeadlineNanos);
+        for (Map.Entry<Integer, byte[]> entry : scan.getBanners().entrySet()) {
+            Map<String, Object> portInfo = describePort(entry.getKey(), serviceFingerprinter.match(entry.getValue()));
+            if (entry.getValue().length > 0) {
+                portInfo.put("banner", ServiceFingerprinter.printable(entry.getValue()));
+            }
+            openPorts.add(portInfo);
+        }
+        return new DevicePorts(openPorts, scan.isComplete());
+    }
+
+    // A fingerprint, when there is one, overrides what the port number alone suggests
+    private Map<String, Object> describePort(int port, ServiceFingerprinter.Fingerprint fingerprint) {
+        Map<String, Object> portInfo = new HashMap<>();
+        portInfo.put("port", port);
+        if (fingerprint != null) {
+            portInfo.put("service", fingerprint.getService());
+            portInfo.put("description", fingerprint.getDescription());
+            portInfo.put("riskLevel", fingerprint.getRiskLevel());
+            portInfo.put("fingerprinted", true);
+            if (fingerprint.getProduct() != null && !fingerprint.getProduct().isEmpty()) {
+                portInfo.put("product", fingerprint.getProduct());
+            }
+        } else {
+            portInfo.put("service", deviceCatalog.serviceName(port));
+            portInfo.put("description", deviceCatalog.serviceDescription(port));
+            portInfo.put("riskLevel", deviceCatalog.riskLevel(port));
+        }
+        return portInfo;
     }
 
     private String guessDeviceType(String hostname, List<Map<String, Object>> openPorts) {
-        String lower = hostname.toLowerCase();
-
-        // Check hostname patterns
-        if (lower.contains("router") || lower.contains("gateway"))
-            return "Router/Gateway";
-        if (lower.contains("printer") || lower.contains("hp") || lower.contains("canon"))
-            return "Printer";
-        if (lower.contains("nas") || lower.contains("synology") || lower.contains("qnap"))
-            return "Network Storage";
-        if (lower.contains("camera") || lower.contains("ipcam"))
-            return "Security Camera";
-        if (lower.contains("phone") || lower.contains("voip"))
-            return "IP Phone";
-
-        // Check by open ports
-        Set<Integer> ports = new HashSet<>();
+        List<String> services = new ArrayList<>(openPorts.size());
         for (Map<String, Object> portInfo : openPorts) {
-            ports.add((Integer) portInfo.get("port"));
-        }
-
-        if (ports.contains(9100))
-            return "Network Printer";
-        if (ports.contains(3389))
-            return "Windows Computer";
-        if (ports.contains(22) && ports.contains(80))
-            return "Linux Server";
-        if (ports.contains(80) && ports.contains(443))
-            return "Web Server";
-        if (ports.contains(445) || ports.contains(139))
-            return "Windows Computer";
-        if (ports.contains(5900))
-            return "Computer (VNC)";
-
-        // Default classification
-        if (openPorts.size() > 5)
-            return "Server/Network Device";
-        if (openPorts.size() > 2)
-            return "Computer/Device";
-        return "Network Device";
+            services.add((String) portInfo.get("service"));
+        }
+        return deviceCatalog.classify(hostname, services, openPorts.size());
     }
 
     private List<String> assessDeviceSecurity(List<Map<String, Object>> openPorts) {
@@ -345,9 +804,9 @@ public class NetworkScannerService {
         }
 
         // Additional security checks
-        boolean hasTelnet = openPorts.stream().anyMatch(p -> (Integer) p.get("port") == 23);
-        boolean hasFTP = openPorts.stream().anyMatch(p -> (Integer) p.get("port") == 21);
-        boolean hasRDP = openPorts.stream().anyMatch(p -> (Integer) p.get("port") == 3389);
+        boolean hasTelnet = openPorts.stream().anyMatch(p -> "Telnet".equals(p.get("service")));
+        boolean hasFTP = openPorts.stream().anyMatch(p -> "FTP".equals(p.get("service")));
+        boolean hasRDP = openPorts.stream().anyMatch(p -> "RDP".equals(p.get("service")));
 
         if (hasTelnet) {
             notes.add("🚨 CRITICAL: Telnet is unencrypted - switch to SSH");
@@ -359,10 +818,123 @@ public class NetworkScannerService {
             notes.add("🔐 INFO: RDP detected - ensure strong passwords and limit access");
         }
 
+        // Larger port profiles find listeners outside the known services; list them rather than ignore them
+        List<Integer> unrecognized = new ArrayList<>();
+        for (Map<String, Object> portInfo : openPorts) {
+            if ("Unknown".equals(portInfo.get("service"))) {
+                unrecognized.add((Integer) portInfo.get("port"));
+            }
+        }
+        if (!unrecognized.isEmpty()) {
+            String listed = unrecognized.size() > 10
+                    ? unrecognized.subList(0, 10) + " and " + (unrecognized.size() - 10) + " more"
+                    : unrecognized.toString();
+            notes.add("🔎 INFO: Unrecognized services on ports " + listed + " - verify they are expected");
+        }
+
         if (notes.isEmpty()) {
             notes.add("✅ No major security concerns detected");
         }
 
         return notes;
     }
+
+    // An IPv4 network attached to one of this host's interfaces
+    private static final class LocalNetwork {
+        final String name;
+        final String displayName;
+        final String localIP;
+        final short prefixLength;
+        final String subnet;
+        final IpRange hosts;
+        final IpRange fullNetwork;
+        final Inet4Address broadcast;
+
+        LocalNetwork(String name, String displayName, Inet4Address address, short prefixLength,
+                InetAddress broadcast) {
+            this.name = name;
+            this.displayName = displayName;
+            this.localIP = address.getHostAddress();
+            this.prefixLength = prefixLength;
+            this.subnet = calculateSubnet(address, prefixLength);
+            this.hosts = IpRange.parse(subnet);
+            this.fullNetwork = IpRange.hostsOf(IpRange.toInt(address), prefixLength);
+            this.broadcast = broadcast instanceof Inet4Address ? (Inet4Address) broadcast : null;
+        }
+    }
+
+    // Per-scan state shared by all host tasks
+    private static final class ScanContext {
+        final NeighbourTable neighbours;
+        final List<LocalNetwork> localNetworks;
+        final AdaptiveProbeController hostProbes;
+        final AdaptiveProbeController portProbes;
+        final int[] ports;
+        final boolean fingerprint;
+        final CompletableFuture<Map<Integer, UdpDiscovery.Responder>> discovery;
+        // Last stored scan in delta mode, otherwise null; this scan's hosts are collected in current
+        final NetworkSnapshot previous;
+        final NetworkSnapshot current = new NetworkSnapshot();
+        // Delta scan between full sweeps: known hosts get only their known ports
+        final boolean knownPortsOnly;
+        // When port scans give up so the host can still be reported before the scan deadline
+        final long portsDeadlineNanos;
+        // Updated only by the joining thread
+        int changedCount;
+        int unchangedCount;
+        int partialCount;
+
+        ScanContext(NeighbourTable neighbours, List<LocalNetwork> localNetworks,
+                AdaptiveProbeController hostProbes, AdaptiveProbeController portProbes, int[] ports,
+                boolean fingerprint, CompletableFuture<Map<Integer, UdpDiscovery.Responder>> discovery,
+                NetworkSnapshot previous, boolean knownPortsOnly, long portsDeadlineNanos) {
+            this.neighbours = neighbours;
+            this.localNetworks = localNetworks;
+            this.hostProbes = hostProbes;
+            this.portProbes = portProbes;
+            this.ports = ports;
+            this.fingerprint = fingerprint;
+            this.discovery = discovery;
+            this.previous = previous;
+            this.knownPortsOnly = previous != null && knownPortsOnly;
+            this.portsDeadlineNanos = portsDeadlineNanos;
+        }
+
+        // Name of the interface whose network contains the address, or "routed" for remote targets
+        String interfaceOf(int address) {
+            for (LocalNetwork network : localNetworks) {
+                if (network.fullNetwork.contains(address)) {
+                    return network.name;
+                }
+            }
+            return "routed";
+        }
+    }
+
+    private static final class DevicePorts {
+        final List<Map<String, Object>> openPorts;
+        final boolean complete;
+
+        DevicePorts(List<Map<String, Object>> openPorts, boolean complete) {
+            this.openPorts = openPorts;
+            this.complete = complete;
+        }
+    }
+
+    private static final class HostResult {
+        final Map<String, Object> device;
+        final List<Map<String, Object>> openPorts;
+        final CompletableFuture<String> hostnameLookup;
+        final Integer address;
+        final boolean changed;
+
+        HostResult(Map<String, Object> device, List<Map<String, Object>> openPorts,
+                CompletableFuture<String> hostnameLookup, Integer address, boolean changed) {
+            this.device = device;
+            this.openPorts = openPorts;
+            this.hostnameLookup = hostnameLookup;
+            this.address = address;
+            this.changed = changed;
+        }
+    }
 }
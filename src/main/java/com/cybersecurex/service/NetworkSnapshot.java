@@ -0,0 +1,98 @@
+package com.cybersecurex.service;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The live hosts of one scan keyed by int IPv4 address, with the state a
+ * later delta scan compares against. Stored as a deflated binary record per
+ * host: address, MAC, device type and the sorted open ports.
+ */
+final class NetworkSnapshot {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final Map<Integer, Host> hosts = new ConcurrentHashMap<>();
+
+    Host get(int address) {
+        return hosts.get(address);
+    }
+
+    void put(int address, String macAddress, String deviceType, int[] ports) {
+        hosts.put(address, new Host(address, macAddress, deviceType, ports));
+    }
+
+    void updateDeviceType(int address, String deviceType) {
+        hosts.computeIfPresent(address, (key, host) -> new Host(address, host.macAddress, deviceType, host.ports));
+    }
+
+    Collection<Host> hosts() {
+        return hosts.values();
+    }
+
+    int size() {
+        return hosts.size();
+    }
+
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(hosts.size());
+            for (Host host : hosts.values()) {
+                out.writeInt(host.address);
+                out.writeUTF(host.macAddress != null ? host.macAddress : "");
+                out.writeUTF(host.deviceType != null ? host.deviceType : "");
+                out.writeShort(host.ports.length);
+                for (int port : host.ports) {
+                    out.writeChar(port);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // In-memory streams do not fail
+        }
+        return bytes.toByteArray();
+    }
+
+    static NetworkSnapshot decode(byte[] data) throws IOException {
+        NetworkSnapshot snapshot = new NetworkSnapshot();
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+            int version = in.readUnsignedByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format " + version);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int address = in.readInt();
+                String mac = in.readUTF();
+                String type = in.readUTF();
+                int[] ports = new int[in.readUnsignedShort()];
+                for (int p = 0; p < ports.length; p++) {
+                    ports[p] = in.readChar();
+                }
+                snapshot.put(address, mac.isEmpty() ? null : mac, type.isEmpty() ? null : type, ports);
+            }
+        }
+        return snapshot;
+    }
+
+    static final class Host {
+        final int address;
+        final String macAddress;
+        final String deviceType;
+        final int[] ports;
+
+        Host(int address, String macAddress, String deviceType, int[] ports) {
+            this.address = address;
+            this.macAddress = macAddress;
+            this.deviceType = deviceType;
+            this.ports = ports.clone();
+            Arrays.sort(this.ports);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.cybersecurex.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * MAC prefix (OUI) to vendor lookup, loaded once at startup from the bundled
+ * oui.txt or from an external IEEE-format file set in network.oui.path.
+ */
+@Component
+public class OuiVendorTable {
+
+    @Value("${network.oui.path:}")
+    private String ouiPath;
+
+    private volatile IntStringMap vendors = new IntStringMap();
+
+    @PostConstruct
+    public void load() {
+        IntStringMap table = new IntStringMap(256);
+        try (InputStream in = openSource()) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                parseLine(line, table);
+            }
+        } catch (IOException e) {
+            // Vendor lookups are best effort; keep whatever was parsed
+        }
+        vendors = table;
+    }
+
+    public String lookup(String macAddress) {
+        if (macAddress == null) {
+            return null;
+        }
+        int oui = parseOui(macAddress);
+        return oui < 0 ? null : vendors.get(oui);
+    }
+
+    public int size() {
+        return vendors.size();
+    }
+
+    private InputStream openSource() throws IOException {
+        if (ouiPath != null && !ouiPath.isBlank()) {
+            return Files.newInputStream(Paths.get(ouiPath));
+        }
+        return new ClassPathResource("oui.txt").getInputStream();
+    }
+
+    // Accepts "001A11 Vendor", "00:1A:11 Vendor" and the IEEE "(hex)" / "(base 16)" lines
+    private static void parseLine(String line, IntStringMap table) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            return;
+        }
+        int split = 0;
+        while (split < trimmed.length() && !Character.isWhitespace(trimmed.charAt(split))) {
+            split++;
+        }
+        // Prefix token is "001A11" or "00:1A:11" / "00-1A-11"
+        int oui = split == 6 || split == 8 ? parseOui(trimmed.substring(0, split)) : -1;
+        if (oui < 0) {
+            return;
+        }
+        String vendor = trimmed.substring(split).trim();
+        if (vendor.startsWith("(hex)")) {
+            vendor = vendor.substring("(hex)".length()).trim();
+        } else if (vendor.startsWith("(base 16)")) {
+            vendor = vendor.substring("(base 16)".length()).trim();
+        }
+        if (!vendor.isEmpty()) {
+            table.put(oui, vendor);
+        }
+    }
+
+    private static int parseOui(String text) {
+        int value = 0;
+        int digits = 0;
+        for (int i = 0; i < text.length() && digits < 6; i++) {
+            char c = text.charAt(i);
+            if (c == ':' || c == '-' || c == '.') {
+                continue;
+            }
+            int digit = Character.digit(c, 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = (value << 4) | digit;
+            digits++;
+        }
+        return digits == 6 ? value : -1;
+    }
+}
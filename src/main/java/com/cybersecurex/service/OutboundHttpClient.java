@@ -0,0 +1,136 @@
+package com.cybersecurex.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The one HTTP client every outbound call goes through. A single
+ * java.net.http.HttpClient keeps connections alive between calls and
+ * multiplexes HTTP/2 streams, so repeated requests to the same host (HIBP
+ * above all) skip the TCP and TLS handshakes. Requests beyond
+ * http.client.max-concurrent-per-host to one destination wait here rather
+ * than opening more connections.
+ */
+@Component
+public class OutboundHttpClient {
+
+    private static final String USER_AGENT = "CyberSecureX/1.0";
+
+    @Value("${http.client.connect-timeout-ms:10000}")
+    private long connectTimeoutMillis;
+
+    @Value("${http.client.request-timeout-ms:10000}")
+    private long requestTimeoutMillis;
+
+    @Value("${http.client.max-concurrent-per-host:8}")
+    private int maxConcurrentPerHost;
+
+    @Value("${http.client.http2:true}")
+    private boolean http2;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "outbound-http");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, Destination> destinations = new ConcurrentHashMap<>();
+
+    private HttpClient client;
+
+    @PostConstruct
+    public void init() {
+        client = HttpClient.newBuilder()
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(executor)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** A GET request builder with the default timeout and User-Agent already set. */
+    public HttpRequest.Builder request(URI uri) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMillis(requestTimeoutMillis))
+                .header("User-Agent", USER_AGENT);
+    }
+
+    /**
+     * Sends the request once its destination has a free slot. The returned
+     * future completes on the client's threads; callers must not block them.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+            HttpResponse.BodyHandler<T> bodyHandler) {
+        Destination destination = destinations.computeIfAbsent(key(request.uri()), k -> new Destination());
+        CompletableFuture<HttpResponse<T>> response = new CompletableFuture<>();
+        destination.submit(() -> {
+            try {
+                client.sendAsync(request, bodyHandler).whenComplete((result, error) -> {
+                    destination.release();
+                    if (error != null) {
+                        response.completeExceptionally(error);
+                    } else {
+                        response.complete(result);
+                    }
+                });
+            } catch (RuntimeException e) {
+                destination.release();
+                response.completeExceptionally(e);
+            }
+        });
+        return response;
+    }
+
+    private static String key(URI uri) {
+        return uri.getScheme() + "://" + uri.getAuthority();
+    }
+
+    // Caps in-flight requests to one scheme and authority; waiting sends start as others complete
+    private final class Destination {
+        private final Queue<Runnable> waiting = new ArrayDeque<>();
+        private int active;
+
+        void submit(Runnable send) {
+            synchronized (this) {
+                if (active >= Math.max(1, maxConcurrentPerHost)) {
+                    waiting.add(send);
+                    return;
+                }
+                active++;
+            }
+            send.run();
+        }
+
+        void release() {
+            Runnable next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    active--;
+                    return;
+                }
+            }
+            next.run();
+        }
+    }
+}
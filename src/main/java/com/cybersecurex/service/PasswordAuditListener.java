@@ -0,0 +1,12 @@
+package com.cybersecurex.service;
+
+import java.util.Map;
+
+/**
+ * Receives the result of each audited entry as soon as it has been evaluated.
+ */
+@FunctionalInterface
+public interface PasswordAuditListener {
+
+    void onResult(Map<String, Object> result);
+}
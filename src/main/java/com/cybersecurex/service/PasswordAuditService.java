@@ -0,0 +1,405 @@
+package com.cybersecurex.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Audits a stream of passwords or SHA-1 hashes, one per line, without
+ * holding the input in memory. A reader thread hands entries to a pool sized
+ * to the cores. At most password.audit.max-in-flight entries are being
+ * evaluated or waiting on a breach lookup at any time, so a slow breach
+ * source slows down reading instead of filling memory. Reuse is detected
+ * from 64-bit hash prefixes alone, and never for more than
+ * password.audit.reuse-tracking-limit distinct entries. Each evaluated entry
+ * goes to the listener: every entry, only flagged ones, or none. The
+ * returned future yields the aggregate statistics.
+ */
+@Service
+public class PasswordAuditService {
+
+    // In getStrengthLabel order, weakest first
+    private static final List<String> STRENGTH_LABELS = List.of("Very Weak", "Weak", "Fair", "Good", "Strong",
+            "Excellent");
+    private static final int WEAK_SCORE = 60; // Below "Good"
+    private static final int TOP_WEAKNESSES = 10;
+    private static final Set<String> FORMATS = Set.of("auto", "passwords", "sha1");
+    private static final Set<String> REPORTS = Set.of("flagged", "all", "none");
+
+    private static final ThreadLocal<MessageDigest> SHA1 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    @Autowired
+    private PasswordService passwordService;
+
+    @Value("${password.audit.max-entries:10000000}")
+    private long maxEntries;
+
+    @Value("${password.audit.max-in-flight:1024}")
+    private int maxInFlight;
+
+    @Value("${password.audit.threads:0}")
+    private int threads;
+
+    @Value("${password.audit.reuse-tracking-limit:2000000}")
+    private int reuseTrackingLimit;
+
+    private ExecutorService workers;
+
+    private final ExecutorService readers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "password-audit-reader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        workers = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "password-audit");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        readers.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Starts auditing the entries in the input, which is closed when done.
+     * The format is "passwords", "sha1" (40 hex digits, optionally followed
+     * by ':' and anything) or "auto", which treats 40-hex-digit lines as
+     * hashes. The report mode is "flagged" (weak, breached or reused
+     * entries), "all" or "none".
+     *
+     * @throws IllegalArgumentException for an unknown format or report mode
+     */
+    public CompletableFuture<Map<String, Object>> auditAsync(InputStream input, String format, String report,
+            boolean checkBreaches, PasswordAuditListener listener) {
+        String entryFormat = format == null ? "auto" : format.trim().toLowerCase(Locale.ROOT);
+        String reportMode = report == null ? "flagged" : report.trim().toLowerCase(Locale.ROOT);
+        if (!FORMATS.contains(entryFormat)) {
+            throw new IllegalArgumentException("Unknown format: " + format + " (expected auto, passwords or sha1)");
+        }
+        if (!REPORTS.contains(reportMode)) {
+            throw new IllegalArgumentException("Unknown report mode: " + report + " (expected flagged, all or none)");
+        }
+        Audit audit = new Audit(entryFormat, reportMode, checkBreaches, listener);
+        readers.execute(() -> audit.run(input));
+        return audit.done;
+    }
+
+    // 40 hex digits, alone or followed by ':' (hash:count and similar exports)
+    private static boolean isSha1Entry(String entry) {
+        if (entry.length() < 40 || (entry.length() > 40 && entry.charAt(40) != ':')) {
+            return false;
+        }
+        for (int i = 0; i < 40; i++) {
+            if (Character.digit(entry.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] decodeSha1(String entry) {
+        byte[] hash = new byte[20];
+        for (int i = 0; i < 20; i++) {
+            hash[i] = (byte) (Character.digit(entry.charAt(2 * i), 16) << 4 | Character.digit(entry.charAt(2 * i + 1), 16));
+        }
+        return hash;
+    }
+
+    private static List<String> weaknesses(PasswordProfile profile) {
+        List<String> weaknesses = new ArrayList<>();
+        if (profile.length < 8) {
+            weaknesses.add("Shorter than 8 characters");
+        } else if (profile.length < 12) {
+            weaknesses.add("Shorter than 12 characters");
+        }
+        if (!profile.hasLowercase) {
+            weaknesses.add("No lowercase letters");
+        }
+        if (!profile.hasUppercase) {
+            weaknesses.add("No uppercase letters");
+        }
+        if (!profile.hasDigits) {
+            weaknesses.add("No digits");
+        }
+        if (!profile.hasSpecialChars) {
+            weaknesses.add("No special characters");
+        }
+        if (profile.hasRepeatingChars) {
+            weaknesses.add("Repeating characters");
+        }
+        if (profile.hasCommonPatterns) {
+            weaknesses.add("Common pattern");
+        }
+        if (profile.isCommonPassword) {
+            weaknesses.add("Common password");
+        }
+        return weaknesses;
+    }
+
+    private final class Audit {
+        final String format;
+        final String report;
+        final boolean checkBreaches;
+        final PasswordAuditListener listener;
+        final Semaphore window = new Semaphore(Math.max(1, maxInFlight));
+        final CompletableFuture<Map<String, Object>> done = new CompletableFuture<>();
+        final long started = System.nanoTime();
+        volatile boolean cancelled;
+        volatile String readError;
+        volatile boolean truncated;
+
+        // Summary counters, guarded by this
+        final LongHashSet seen = new LongHashSet(1024);
+        long entries;
+        long passwords;
+        long hashes;
+        long invalid;
+        long scoreTotal;
+        long breachChecked;
+        long breached;
+        long breachCheckFailures;
+        long reused;
+        boolean reuseTrackingComplete = true;
+        final long[] strengthCounts = new long[STRENGTH_LABELS.size()];
+        final Map<String, Long> weaknessCounts = new HashMap<>();
+
+        Audit(String format, String report, boolean checkBreaches, PasswordAuditListener listener) {
+            this.format = format;
+            this.report = report;
+            this.checkBreaches = checkBreaches;
+            this.listener = listener;
+        }
+
+        void run(InputStream input) {
+            int permits = Math.max(1, maxInFlight);
+            long read = 0;
+            long lineNumber = 0;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8),
+                    1 << 16)) {
+                String line;
+                while (!cancelled && (line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    if (read >= maxEntries) {
+                        truncated = true;
+                        break;
+                    }
+                    window.acquire(); // Waits while the window is full
+                    read++;
+                    String entry = line;
+                    long number = lineNumber;
+                    try {
+                        workers.execute(() -> evaluate(entry, number));
+                    } catch (RejectedExecutionException e) {
+                        window.release();
+                        cancelled = true;
+                    }
+                }
+            } catch (IOException e) {
+                readError = e.getMessage();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+            }
+            // Every permit back means every entry has been recorded
+            window.acquireUninterruptibly(permits);
+            done.complete(summary());
+        }
+
+        private void evaluate(String entry, long lineNumber) {
+            try {
+                PasswordProfile profile = null;
+                byte[] sha1;
+                boolean hash = format.equals("sha1") || (format.equals("auto") && isSha1Entry(entry));
+                if (hash) {
+                    if (!isSha1Entry(entry)) {
+                        record(lineNumber, null, null, null, new IllegalArgumentException("Not a SHA-1 hash"));
+                        return;
+                    }
+                    sha1 = decodeSha1(entry);
+                } else {
+                    profile = PasswordProfile.of(entry);
+                    sha1 = SHA1.get().digest(entry.getBytes(StandardCharsets.UTF_8));
+                }
+                if (!checkBreaches) {
+                    record(lineNumber, profile, sha1, null, null);
+                    return;
+                }
+                // Remote lookups complete on the shared HTTP client's threads; recording publishes through
+                // the client's stream, which may block, so it runs back on the audit's own workers
+                PasswordProfile evaluated = profile;
+                passwordService.breachCount(sha1).whenCompleteAsync((count, error) ->
+                        record(lineNumber, evaluated, sha1, count, error), workers);
+            } catch (RuntimeException e) {
+                record(lineNumber, null, null, null, e);
+            }
+        }
+
+        // Folds one entry into the statistics, reports it, and frees its slot in the window
+        private void record(long lineNumber, PasswordProfile profile, byte[] sha1, Integer count, Throwable error) {
+            try {
+                Map<String, Object> result = new HashMap<>();
+                result.put("line", lineNumber);
+                if (sha1 == null) {
+                    result.put("status", "error");
+                    result.put("message", error != null ? error.getMessage() : "Invalid entry");
+                    synchronized (this) {
+                        entries++;
+                        invalid++;
+                    }
+                    publish(result, true);
+                    return;
+                }
+
+                result.put("status", "success");
+                result.put("type", profile != null ? "password" : "sha1");
+                boolean flagged = false;
+                List<String> found = List.of();
+                int score = 0;
+                if (profile != null) {
+                    score = passwordService.calculateStrengthScore(profile);
+                    found = weaknesses(profile);
+                    result.put("score", score);
+                    result.put("strength", passwordService.getStrengthLabel(score));
+                    result.put("weaknesses", found);
+                    flagged = score < WEAK_SCORE;
+                }
+                if (checkBreaches) {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        result.put("breachError", cause.getMessage());
+                    } else {
+                        result.put("breached", count > 0);
+                        result.put("breachCount", count);
+                        flagged |= count > 0;
+                    }
+                }
+
+                boolean isReuse;
+                synchronized (this) {
+                    long key = PwnedHashIndex.readLong(sha1, 0);
+                    if (seen.size() < reuseTrackingLimit) {
+                        isReuse = !seen.add(key);
+                    } else {
+                        isReuse = seen.contains(key);
+                        reuseTrackingComplete = false;
+                    }
+                    entries++;
+                    if (isReuse) {
+                        reused++;
+                    }
+                    if (profile != null) {
+                        passwords++;
+                        scoreTotal += score;
+                        strengthCounts[STRENGTH_LABELS.indexOf(result.get("strength"))]++;
+                        for (String weakness : found) {
+                            weaknessCounts.merge(weakness, 1L, Long::sum);
+                        }
+                    } else {
+                        hashes++;
+                    }
+                    if (checkBreaches && error != null) {
+                        breachCheckFailures++;
+                    } else if (checkBreaches) {
+                        breachChecked++;
+                        if (count > 0) {
+                            breached++;
+                        }
+                    }
+                }
+                result.put("reused", isReuse);
+                publish(result, flagged || isReuse);
+            } finally {
+                window.release();
+            }
+        }
+
+        private void publish(Map<String, Object> result, boolean flagged) {
+            if (cancelled || report.equals("none") || (report.equals("flagged") && !flagged)) {
+                return;
+            }
+            try {
+                listener.onResult(result);
+            } catch (RuntimeException e) {
+                cancelled = true; // The consumer went away; stop reading
+            }
+        }
+
+        synchronized Map<String, Object> summary() {
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("status", cancelled ? "cancelled" : readError != null ? "error" : "success");
+            if (readError != null) {
+                summary.put("readError", readError);
+            }
+            Map<String, Long> distribution = new LinkedHashMap<>();
+            for (int i = 0; i < STRENGTH_LABELS.size(); i++) {
+                distribution.put(STRENGTH_LABELS.get(i), strengthCounts[i]);
+            }
+            List<Map<String, Object>> topWeaknesses = new ArrayList<>();
+            weaknessCounts.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .limit(TOP_WEAKNESSES)
+                    .forEach(e -> {
+                        Map<String, Object> weakness = new LinkedHashMap<>();
+                        weakness.put("weakness", e.getKey());
+                        weakness.put("count", e.getValue());
+                        weakness.put("share", ratio(e.getValue(), passwords));
+                        topWeaknesses.add(weakness);
+                    });
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+            summary.put("entries", entries);
+            summary.put("passwords", passwords);
+            summary.put("hashes", hashes);
+            summary.put("invalid", invalid);
+            summary.put("truncated", truncated);
+            summary.put("strengthDistribution", distribution);
+            summary.put("averageScore", passwords == 0 ? 0.0 : Math.round(scoreTotal * 10.0 / passwords) / 10.0);
+            summary.put("topWeaknesses", topWeaknesses);
+            summary.put("breachChecks", checkBreaches);
+            summary.put("breached", breached);
+            summary.put("breachRate", ratio(breached, breachChecked));
+            summary.put("breachCheckFailures", breachCheckFailures);
+            summary.put("reusedEntries", reused);
+            summary.put("distinctTracked", seen.size());
+            summary.put("reuseTrackingComplete", reuseTrackingComplete);
+            summary.put("durationMs", durationMs);
+            summary.put("entriesPerSecond", durationMs == 0 ? entries : entries * 1000 / durationMs);
+            summary.put("message", "Audited " + entries + " entries"
+                    + (checkBreaches ? ", " + breached + " breached" : "") + ", " + reused + " reused");
+            return summary;
+        }
+    }
+
+    private static double ratio(long part, long whole) {
+        return whole == 0 ? 0.0 : Math.round(part * 10000.0 / whole) / 10000.0;
+    }
+}
@@ -0,0 +1,210 @@
+package com.cybersecurex.service;
+
+import java.util.Arrays;
+
+/**
+ * Everything the password analysis needs, found in one pass over the code
+ * points without regexes or boxing. That covers the character classes
+ * (ASCII letters and digits, as the old [a-z] style checks had it), runs of
+ * three repeated characters, and the unique count and Shannon entropy over
+ * a frequency histogram. ASCII is counted in a reused per-thread table;
+ * other code points are sorted in a reused buffer and counted in runs.
+ * Entropy is computed as log2(n) - sum(c * log2(c)) / n, with c * log2(c)
+ * taken from a table, so a call makes one log call instead of one per
+ * distinct character. Common patterns are matched in the same pass, by
+ * comparing ASCII-folded characters in place rather than lower-casing a copy.
+ */
+final class PasswordProfile {
+
+    private static final String[] COMMON_PATTERNS = { "123", "abc", "qwe", "password", "admin", "login", "welcome" };
+    private static final String[] COMMON_PASSWORDS = { "password", "123456", "password123", "admin", "qwerty",
+            "letmein", "welcome", "monkey", "dragon" };
+
+    // C_LOG2_C[c] = c * log2(c) for the counts short passwords actually have
+    private static final double[] C_LOG2_C = new double[257];
+
+    // Characters a common pattern starts with, so most positions are ruled out by one lookup
+    private static final boolean[] PATTERN_START = new boolean[128];
+
+    static {
+        for (int c = 1; c < C_LOG2_C.length; c++) {
+            C_LOG2_C[c] = c * log2(c);
+        }
+        for (String pattern : COMMON_PATTERNS) {
+            PATTERN_START[pattern.charAt(0)] = true;
+        }
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    final int length;
+    final boolean hasLowercase;
+    final boolean hasUppercase;
+    final boolean hasDigits;
+    final boolean hasSpecialChars;
+    final boolean hasRepeatingChars;
+    final boolean hasCommonPatterns;
+    final boolean isCommonPassword;
+    final int uniqueChars;
+    final double entropy;
+
+    private PasswordProfile(int length, boolean hasLowercase, boolean hasUppercase, boolean hasDigits,
+            boolean hasSpecialChars, boolean hasRepeatingChars, boolean hasCommonPatterns, boolean isCommonPassword,
+            int uniqueChars, double entropy) {
+        this.length = length;
+        this.hasLowercase = hasLowercase;
+        this.hasUppercase = hasUppercase;
+        this.hasDigits = hasDigits;
+        this.hasSpecialChars = hasSpecialChars;
+        this.hasRepeatingChars = hasRepeatingChars;
+        this.hasCommonPatterns = hasCommonPatterns;
+        this.isCommonPassword = isCommonPassword;
+        this.uniqueChars = uniqueChars;
+        this.entropy = entropy;
+    }
+
+    /** Number of character classes present: lowercase, uppercase, digits, other. */
+    int categories() {
+        return (hasLowercase ? 1 : 0) + (hasUppercase ? 1 : 0) + (hasDigits ? 1 : 0) + (hasSpecialChars ? 1 : 0);
+    }
+
+    static PasswordProfile of(String password) {
+        Scratch scratch = SCRATCH.get();
+        int generation = scratch.nextGeneration();
+        int[] asciiCounts = scratch.asciiCounts;
+        int[] asciiSeen = scratch.asciiSeen;
+        int[] asciiDistinct = scratch.asciiDistinct;
+        int[] others = scratch.others(password.length());
+
+        boolean lower = false;
+        boolean upper = false;
+        boolean digit = false;
+        boolean special = false;
+        boolean repeating = false;
+        boolean commonPattern = false;
+        int codePoints = 0;
+        int otherCount = 0;
+        int unique = 0;
+        int previous = -1;
+        int run = 0;
+
+        for (int i = 0; i < password.length(); ) {
+            int c = password.codePointAt(i);
+            if (!commonPattern && c < 128 && PATTERN_START[fold(c)]) {
+                commonPattern = startsCommonPattern(password, i, fold(c));
+            }
+            i += Character.charCount(c);
+            codePoints++;
+
+            if (c >= 'a' && c <= 'z') {
+                lower = true;
+            } else if (c >= 'A' && c <= 'Z') {
+                upper = true;
+            } else if (c >= '0' && c <= '9') {
+                digit = true;
+            } else {
+                special = true;
+            }
+
+            run = c == previous ? run + 1 : 1;
+            if (run >= 3) {
+                repeating = true;
+            }
+            previous = c;
+
+            if (c < 128) {
+                if (asciiSeen[c] != generation) {
+                    asciiSeen[c] = generation;
+                    asciiCounts[c] = 0;
+                    asciiDistinct[unique++] = c;
+                }
+                asciiCounts[c]++;
+            } else {
+                others[otherCount++] = c;
+            }
+        }
+
+        // Entropy over the histogram: ASCII from the table, the rest as runs of the sorted buffer
+        double weighted = 0.0;
+        for (int i = 0; i < unique; i++) {
+            weighted += cLog2c(asciiCounts[asciiDistinct[i]]);
+        }
+        Arrays.sort(others, 0, otherCount);
+        for (int i = 0; i < otherCount; ) {
+            int j = i + 1;
+            while (j < otherCount && others[j] == others[i]) {
+                j++;
+            }
+            weighted += cLog2c(j - i);
+            unique++;
+            i = j;
+        }
+        double entropy = codePoints == 0 ? 0.0 : log2(codePoints) - weighted / codePoints;
+
+        return new PasswordProfile(password.length(), lower, upper, digit, special, repeating, commonPattern,
+                equalsIgnoreCase(password, COMMON_PASSWORDS), unique, Math.round(entropy * 100.0) / 100.0);
+    }
+
+    private static double cLog2c(int count) {
+        return count < C_LOG2_C.length ? C_LOG2_C[count] : count * log2(count);
+    }
+
+    private static double log2(double value) {
+        return Math.log(value) / Math.log(2);
+    }
+
+    private static int fold(int c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    // Whether a common pattern starts at index, given the ASCII-folded character there
+    private static boolean startsCommonPattern(String password, int index, int first) {
+        for (String pattern : COMMON_PATTERNS) {
+            if (pattern.charAt(0) != first || index + pattern.length() > password.length()) {
+                continue;
+            }
+            int k = 1;
+            while (k < pattern.length() && fold(password.charAt(index + k)) == pattern.charAt(k)) {
+                k++;
+            }
+            if (k == pattern.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean equalsIgnoreCase(String password, String[] candidates) {
+        for (String candidate : candidates) {
+            if (password.equalsIgnoreCase(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Per-thread tables reused across calls; a generation stamp stands in for clearing them
+    private static final class Scratch {
+        final int[] asciiCounts = new int[128];
+        final int[] asciiSeen = new int[128];
+        final int[] asciiDistinct = new int[128];
+        int[] others = new int[64];
+        int generation;
+
+        int nextGeneration() {
+            generation++;
+            if (generation <= 0) {
+                Arrays.fill(asciiSeen, 0);
+                generation = 1;
+            }
+            return generation;
+        }
+
+        int[] others(int capacity) {
+            if (others.length < capacity) {
+                others = new int[Math.max(capacity, others.length * 2)];
+            }
+            return others;
+        }
+    }
+}
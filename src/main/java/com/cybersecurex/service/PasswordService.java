@@ -1,35 +1,47 @@
 package com.cybersecurex.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class PasswordService {
 
-    private static final String HIBP_API_URL = "https://api.pwnedpasswords.com/range/";
+    @Autowired
+    private PwnedRangeCache breachRanges;
+
+    @Autowired
+    private PwnedHashIndex breachIndex;
+
+    @Autowired
+    private BreachFilter breachFilter;
 
     public Map<String, Object> analyzePassword(String password) {
         Map<String, Object> result = new HashMap<>();
 
         try {
+            // Start the breach lookup first so it overlaps the local analysis
+            CompletableFuture<Map<String, Object>> breachLookup = checkPasswordBreach(password);
+
+            // One pass over the password yields everything the checks below need
+            PasswordProfile profile = PasswordProfile.of(password);
+
             // Calculate strength score
-            int score = calculateStrengthScore(password);
+            int score = calculateStrengthScore(profile);
             String strength = getStrengthLabel(score);
 
             // Get improvement suggestions
-            List<String> suggestions = getImprovementSuggestions(password);
+            List<String> suggestions = getImprovementSuggestions(profile);
 
             // Check if password has been breached (this might take a moment)
-            Map<String, Object> breachInfo = checkPasswordBreach(password);
+            Map<String, Object> breachInfo = breachLookup.join();
 
             // Detailed analysis
-            Map<String, Object> analysis = getDetailedAnalysis(password);
+            Map<String, Object> analysis = getDetailedAnalysis(profile);
 
             result.put("password", "•".repeat(password.length())); // Hide actual password
             result.put("score", score);
@@ -48,42 +60,42 @@ public class PasswordService {
         return result;
     }
 
-    private int calculateStrengthScore(String password) {
+    int calculateStrengthScore(PasswordProfile profile) {
         int score = 0;
 
         // Length scoring (up to 40 points)
-        score += Math.min(password.length() * 4, 40);
+        score += Math.min(profile.length * 4, 40);
 
         // Character variety (50 points total)
-        if (Pattern.compile("[a-z]").matcher(password).find())
+        if (profile.hasLowercase)
             score += 10;
-        if (Pattern.compile("[A-Z]").matcher(password).find())
+        if (profile.hasUppercase)
             score += 10;
-        if (Pattern.compile("[0-9]").matcher(password).find())
+        if (profile.hasDigits)
             score += 10;
-        if (Pattern.compile("[^a-zA-Z0-9]").matcher(password).find())
+        if (profile.hasSpecialChars)
             score += 15;
 
         // Length bonuses
-        if (password.length() >= 8)
+        if (profile.length >= 8)
             score += 5;
-        if (password.length() >= 12)
+        if (profile.length >= 12)
             score += 10;
-        if (password.length() >= 16)
+        if (profile.length >= 16)
             score += 5;
 
         // Complexity bonuses
-        if (hasNoRepeatingChars(password))
+        if (!profile.hasRepeatingChars)
             score += 5;
-        if (hasNoCommonPatterns(password))
+        if (!profile.hasCommonPatterns)
             score += 5;
-        if (hasGoodMixOfChars(password))
+        if (profile.categories() >= 3)
             score += 5;
 
         return Math.min(score, 100);
     }
 
-    private String getStrengthLabel(int score) {
+    String getStrengthLabel(int score) {
         if (score >= 90)
             return "Excellent";
         if (score >= 75)
@@ -97,34 +109,34 @@ public class PasswordService {
         return "Very Weak";
     }
 
-    private List<String> getImprovementSuggestions(String password) {
+    List<String> getImprovementSuggestions(PasswordProfile profile) {
         List<String> suggestions = new ArrayList<>();
 
-        if (password.length() < 8) {
-            suggestions.add("🔢 Use at least 8 characters (current: " + password.length() + ")");
+        if (profile.length < 8) {
+            suggestions.add("🔢 Use at least 8 characters (current: " + profile.length + ")");
         }
-        if (password.length() < 12) {
+        if (profile.length < 12) {
             suggestions.add("🎯 Consider 12+ characters for better security");
         }
-        if (!Pattern.compile("[a-z]").matcher(password).find()) {
+        if (!profile.hasLowercase) {
             suggestions.add("🔤 Add lowercase letters (a-z)");
         }
-        if (!Pattern.compile("[A-Z]").matcher(password).find()) {
+        if (!profile.hasUppercase) {
             suggestions.add("🔠 Add uppercase letters (A-Z)");
         }
-        if (!Pattern.compile("[0-9]").matcher(password).find()) {
+        if (!profile.hasDigits) {
             suggestions.add("🔢 Add numbers (0-9)");
         }
-        if (!Pattern.compile("[^a-zA-Z0-9]").matcher(password).find()) {
+        if (!profile.hasSpecialChars) {
             suggestions.add("🔣 Add special characters (!@#$%^&*)");
         }
-        if (hasRepeatingChars(password)) {
+        if (profile.hasRepeatingChars) {
             suggestions.add("🔄 Avoid repeating characters (aaa, 111)");
         }
-        if (hasCommonPatterns(password)) {
+        if (profile.hasCommonPatterns) {
             suggestions.add("🚫 Avoid common patterns (123, abc, qwe)");
         }
-        if (isCommonPassword(password)) {
+        if (profile.isCommonPassword) {
             suggestions.add("⚠️ Avoid common passwords");
         }
 
@@ -135,145 +147,77 @@ public class PasswordService {
         return suggestions;
     }
 
-    private Map<String, Object> checkPasswordBreach(String password) {
-        Map<String, Object> breachInfo = new HashMap<>();
-
+    private CompletableFuture<Map<String, Object>> checkPasswordBreach(String password) {
+        byte[] sha1Hash;
         try {
-            // Hash the password using SHA-1
-            MessageDigest md = MessageDigest.getInstance("SHA-1");
-            byte[] hash = md.digest(password.getBytes());
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1)
-                    hexString.append('0');
-                hexString.append(hex);
-            }
-            String sha1Hash = hexString.toString().toUpperCase();
-
-            // Get first 5 characters for k-anonymity
-            String prefix = sha1Hash.substring(0, 5);
-            String suffix = sha1Hash.substring(5);
-
-            // Call HaveIBeenPwned API
-            URL url = new URL(HIBP_API_URL + prefix);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("User-Agent", "CyberSecureX-PasswordChecker/1.0");
-            conn.setConnectTimeout(10000);
-            conn.setReadTimeout(10000);
-
-            int responseCode = conn.getResponseCode();
-            if (responseCode == 200) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    String[] parts = line.split(":");
-                    if (parts.length == 2 && parts[0].equals(suffix)) {
-                        int count = Integer.parseInt(parts[1]);
-                        breachInfo.put("breached", true);
-                        breachInfo.put("count", count);
-                        breachInfo.put("message", "⚠️ This password has been found in " + count + " data breaches!");
-                        reader.close();
-                        return breachInfo;
-                    }
-                }
-                reader.close();
-            }
-
-            breachInfo.put("breached", false);
-            breachInfo.put("message", "✅ Password not found in known data breaches");
-
+            // Hash the password using SHA-1; only its first 5 hex digits leave this machine (k-anonymity)
+            sha1Hash = MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8));
         } catch (Exception e) {
-            breachInfo.put("breached", false);
-            breachInfo.put("message", "⚠️ Could not check breach database: " + e.getMessage());
-            breachInfo.put("error", true);
+            return CompletableFuture.completedFuture(breachCheckFailed(e));
         }
 
-        return breachInfo;
-    }
-
-    private Map<String, Object> getDetailedAnalysis(String password) {
-        Map<String, Object> analysis = new HashMap<>();
-
-        analysis.put("length", password.length());
-        analysis.put("hasLowercase", Pattern.compile("[a-z]").matcher(password).find());
-        analysis.put("hasUppercase", Pattern.compile("[A-Z]").matcher(password).find());
-        analysis.put("hasNumbers", Pattern.compile("[0-9]").matcher(password).find());
-        analysis.put("hasSpecialChars", Pattern.compile("[^a-zA-Z0-9]").matcher(password).find());
-        analysis.put("uniqueChars", password.chars().distinct().count());
-        analysis.put("entropy", calculateEntropy(password));
-
-        return analysis;
-    }
-
-    private boolean hasNoRepeatingChars(String password) {
-        return !hasRepeatingChars(password);
-    }
-
-    private boolean hasRepeatingChars(String password) {
-        for (int i = 0; i < password.length() - 2; i++) {
-            if (password.charAt(i) == password.charAt(i + 1) &&
-                    password.charAt(i) == password.charAt(i + 2)) {
-                return true;
+        return breachCount(sha1Hash).handle((count, error) -> {
+            if (error != null) {
+                return breachCheckFailed(error instanceof CompletionException
+                        && error.getCause() != null ? error.getCause() : error);
+            }
+            Map<String, Object> breachInfo = new HashMap<>();
+            if (count > 0) {
+                breachInfo.put("breached", true);
+                breachInfo.put("count", count);
+                breachInfo.put("message", "⚠️ This password has been found in " + count + " data breaches!");
+                return breachInfo;
             }
-        }
-        return false;
-    }
 
-    private boolean hasNoCommonPatterns(String password) {
-        return !hasCommonPatterns(password);
+            breachInfo.put("breached", false);
+            breachInfo.put("message", "✅ Password not found in known data breaches");
+            return breachInfo;
+        });
     }
 
-    private boolean hasCommonPatterns(String password) {
-        String lower = password.toLowerCase();
-        String[] patterns = { "123", "abc", "qwe", "password", "admin", "login", "welcome" };
-        for (String pattern : patterns) {
-            if (lower.contains(pattern)) {
-                return true;
-            }
-        }
-        return false;
+    /** How often the SHA-1 hash appears in known breaches, or 0. */
+    CompletableFuture<Integer> breachCount(byte[] sha1Hash) {
+        // A pre-filter miss means the hash is definitely not in the corpus. Probable hits go to
+        // the local index, which needs no network, or else to the range cache / HaveIBeenPwned
+        if (!breachFilter.mightContain(sha1Hash)) {
+            return CompletableFuture.completedFuture(0);
+        }
+        return (breachIndex.isAvailable()
+                ? CompletableFuture.completedFuture(breachIndex.breachCount(sha1Hash))
+                : breachRanges.breachCount(sha1Hash)).thenApply(count -> {
+                    if (breachFilter.isAvailable()) {
+                        breachFilter.recordExactResult(count > 0);
+                    }
+                    return count;
+                });
     }
 
-    private boolean hasGoodMixOfChars(String password) {
-        int categories = 0;
-        if (Pattern.compile("[a-z]").matcher(password).find())
-            categories++;
-        if (Pattern.compile("[A-Z]").matcher(password).find())
-            categories++;
-        if (Pattern.compile("[0-9]").matcher(password).find())
-            categories++;
-        if (Pattern.compile("[^a-zA-Z0-9]").matcher(password).find())
-            categories++;
-        return categories >= 3;
+    public Map<String, Object> breachCacheStats() {
+        Map<String, Object> stats = breachRanges.stats();
+        stats.put("index", breachIndex.stats());
+        stats.put("filter", breachFilter.stats());
+        return stats;
     }
 
-    private boolean isCommonPassword(String password) {
-        String[] common = { "password", "123456", "password123", "admin", "qwerty",
-                "letmein", "welcome", "monkey", "dragon" };
-        String lower = password.toLowerCase();
-        for (String commonPwd : common) {
-            if (lower.equals(commonPwd)) {
-                return true;
-            }
-        }
-        return false;
+    private Map<String, Object> breachCheckFailed(Throwable e) {
+        Map<String, Object> breachInfo = new HashMap<>();
+        breachInfo.put("breached", false);
+        breachInfo.put("message", "⚠️ Could not check breach database: " + e.getMessage());
+        breachInfo.put("error", true);
+        return breachInfo;
     }
 
-    private double calculateEntropy(String password) {
-        Map<Character, Integer> frequencies = new HashMap<>();
-        for (char c : password.toCharArray()) {
-            frequencies.put(c, frequencies.getOrDefault(c, 0) + 1);
-        }
+    Map<String, Object> getDetailedAnalysis(PasswordProfile profile) {
+        Map<String, Object> analysis = new HashMap<>();
 
-        double entropy = 0.0;
-        int length = password.length();
-        for (int freq : frequencies.values()) {
-            double probability = (double) freq / length;
-            entropy -= probability * (Math.log(probability) / Math.log(2));
-        }
+        analysis.put("length", profile.length);
+        analysis.put("hasLowercase", profile.hasLowercase);
+        analysis.put("hasUppercase", profile.hasUppercase);
+        analysis.put("hasNumbers", profile.hasDigits);
+        analysis.put("hasSpecialChars", profile.hasSpecialChars);
+        analysis.put("uniqueChars", (long) profile.uniqueChars);
+        analysis.put("entropy", profile.entropy);
 
-        return Math.round(entropy * 100.0) / 100.0;
+        return analysis;
     }
 }
@@ -0,0 +1,118 @@
+package com.cybersecurex.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Named port lists a scan can be run with: the scanner's own common ports,
+ * the top 100 or top 1000 ports from port-profiles.properties, the full
+ * 1-65535 range, or a custom list such as "22,80,8000-8100".
+ */
+@Component
+public class PortProfiles {
+
+    public static final String COMMON = "common";
+    public static final String TOP_100 = "top-100";
+    public static final String TOP_1000 = "top-1000";
+    public static final String FULL = "full";
+    public static final String CUSTOM = "custom";
+
+    private static final int MAX_PORT = 65535;
+    private static final int[] FULL_RANGE = new int[MAX_PORT];
+
+    static {
+        for (int i = 0; i < MAX_PORT; i++) {
+            FULL_RANGE[i] = i + 1;
+        }
+    }
+
+    private volatile Map<String, int[]> profiles = new HashMap<>();
+
+    @PostConstruct
+    public void load() {
+        Map<String, int[]> loaded = new HashMap<>();
+        Properties properties = new Properties();
+        try (InputStream in = new ClassPathResource("port-profiles.properties").getInputStream()) {
+            properties.load(in);
+        } catch (IOException e) {
+            // Only the built-in profiles remain available
+        }
+        for (String name : properties.stringPropertyNames()) {
+            loaded.put(name, parsePorts(properties.getProperty(name)));
+        }
+        profiles = loaded;
+    }
+
+    /**
+     * Ports to probe for a request. With no profile, a custom list is used if
+     * one was given and the caller's common ports otherwise.
+     *
+     * @throws IllegalArgumentException for an unknown profile or a bad port list
+     */
+    public int[] resolve(String profile, String customPorts, int[] commonPorts) {
+        String name = profile == null || profile.isBlank() ? null : profile.trim().toLowerCase();
+        if (name == null) {
+            name = customPorts == null || customPorts.isBlank() ? COMMON : CUSTOM;
+        }
+        switch (name) {
+            case COMMON:
+                return commonPorts;
+            case FULL:
+                return FULL_RANGE;
+            case CUSTOM:
+                if (customPorts == null || customPorts.isBlank()) {
+                    throw new IllegalArgumentException("The custom port profile needs a list of ports");
+                }
+                return parsePorts(customPorts);
+            default:
+                int[] ports = profiles.get(name);
+                if (ports == null) {
+                    throw new IllegalArgumentException("Unknown port profile: " + profile);
+                }
+                return ports;
+        }
+    }
+
+    /** Parses comma separated ports and inclusive ranges into sorted, distinct ports. */
+    public static int[] parsePorts(String spec) {
+        BitSet ports = new BitSet(MAX_PORT + 1);
+        for (String part : spec.split(",")) {
+            String value = part.trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            int dash = value.indexOf('-');
+            int first = parsePort(dash < 0 ? value : value.substring(0, dash));
+            int last = dash < 0 ? first : parsePort(value.substring(dash + 1));
+            if (first > last) {
+                throw new IllegalArgumentException("Invalid port range: " + value);
+            }
+            ports.set(first, last + 1);
+        }
+        if (ports.isEmpty()) {
+            throw new IllegalArgumentException("No ports given");
+        }
+        return ports.stream().toArray();
+    }
+
+    private static int parsePort(String value) {
+        int port;
+        try {
+            port = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port: " + value);
+        }
+        if (port < 1 || port > MAX_PORT) {
+            throw new IllegalArgumentException("Port out of range: " + value);
+        }
+        return port;
+    }
+}
@@ -0,0 +1,582 @@
+package com.cybersecurex.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking TCP connect scanner shared by the network and website scanners.
+ * A handful of selector threads keep thousands of connect attempts in flight
+ * and report each open port as soon as its handshake completes. When a scan
+ * supplies an {@link AdaptiveProbeController}, every answered connect (open or
+ * refused) feeds it an RTT sample for that host, every unanswered one is
+ * reported as a timeout, and in-flight probes are timed out against the host's
+ * current estimate rather than the timeout they started with.
+ *
+ * In-flight connects are capped globally (split across the selector threads)
+ * and per batch: a batch only hands the next port to a worker when one of its
+ * own probes finishes, so a full-range sweep of one host cannot fill the
+ * workers' queues ahead of every other host being scanned.
+ *
+ * Service scans keep each connection that proved a port open and read the
+ * first bytes the service sends on that same socket. Services that wait for
+ * the client first are sent a minimal HTTP request after a short pause. The
+ * read stage runs in the selector like the connects, so banners of all ports
+ * are collected in parallel.
+ */
+@Service
+public class PortScanEngine {
+
+    private static final int SELECTOR_THREADS = 2;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 4096;
+    private static final int DEFAULT_MAX_IN_FLIGHT_PER_HOST = 1024;
+    private static final long ADAPTIVE_SWEEP_NANOS = 10_000_000L;
+    private static final int BANNER_BYTES = 1024;
+    private static final byte[] HTTP_PROBE = "GET / HTTP/1.0\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final Worker[] workers = new Worker[SELECTOR_THREADS];
+    private final AtomicInteger nextWorker = new AtomicInteger();
+    private final int maxInFlightPerHost;
+
+    public interface PortListener {
+        void onOpen(InetAddress address, int port);
+    }
+
+    public PortScanEngine() {
+        this(DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_IN_FLIGHT_PER_HOST);
+    }
+
+    @Autowired
+    public PortScanEngine(@Value("${network.ports.max-in-flight:4096}") int maxInFlight,
+            @Value("${network.ports.max-in-flight-per-host:1024}") int maxInFlightPerHost) {
+        this.maxInFlightPerHost = Math.max(1, maxInFlightPerHost);
+        int perThread = Math.max(1, maxInFlight / SELECTOR_THREADS);
+        for (int i = 0; i < workers.length; i++) {
+            try {
+                workers[i] = new Worker("port-scan-" + i, perThread);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not open selector for port scanning", e);
+            }
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Blocking convenience wrapper. If the calling thread is interrupted the
+     * remaining probes are cancelled and an empty list is returned.
+     */
+    public List<Integer> scanPorts(String host, int[] ports, int timeoutMillis) {
+        return scanPorts(host, ports, timeoutMillis, null);
+    }
+
+    public List<Integer> scanPorts(String host, int[] ports, AdaptiveProbeController controller) {
+        return scanPorts(host, ports, controller.timeoutMillis(), controller);
+    }
+
+    private List<Integer> scanPorts(String host, int[] ports, int timeoutMillis,
+            AdaptiveProbeController controller) {
+        CompletableFuture<List<Integer>> future;
+        try {
+            future = scan(InetAddress.getByName(host), ports, timeoutMillis, controller, null);
+        } catch (UnknownHostException e) {
+            return new ArrayList<>();
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException e) {
+            // Fall through to empty result
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Blocking scan that gives up at {@code deadlineNanos} (a {@link System#nanoTime}
+     * value) or on interruption, returning the ports found open so far and
+     * marked incomplete; unsent ports are dropped and in-flight ones abandoned.
+     */
+    public PortScan scanPorts(String host, int[] ports, AdaptiveProbeController controller, long deadlineNanos) {
+        try {
+            return await(start(InetAddress.getByName(host), ports, controller.timeoutMillis(), controller, null, 0),
+                    deadlineNanos);
+        } catch (UnknownHostException e) {
+            return new PortScan(new ArrayList<>(), new TreeMap<>(), true);
+        }
+    }
+
+    /**
+     * Blocking service scan: each open port, in order, mapped to the first
+     * bytes its service sent within {@code bannerTimeoutMillis} (empty if it
+     * sent nothing). The deadline and interruption behave as in
+     * {@link #scanPorts(String, int[], AdaptiveProbeController, long)}.
+     */
+    public PortScan scanServices(String host, int[] ports, AdaptiveProbeController controller,
+            int bannerTimeoutMillis, long deadlineNanos) {
+        try {
+            return await(start(InetAddress.getByName(host), ports, controller.timeoutMillis(), controller, null,
+                    Math.max(1, bannerTimeoutMillis)), deadlineNanos);
+        } catch (UnknownHostException e) {
+            return new PortScan(new ArrayList<>(), new TreeMap<>(), true);
+        }
+    }
+
+    private static PortScan await(Batch batch, long deadlineNanos) {
+        boolean complete = false;
+        try {
+            batch.future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            complete = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException | ExecutionException | CancellationException e) {
+            // Report what was found before the deadline
+        }
+        if (!complete) {
+            batch.future.cancel(false);
+        }
+        synchronized (batch.openPorts) {
+            List<Integer> openPorts = new ArrayList<>(batch.openPorts);
+            Collections.sort(openPorts);
+            return new PortScan(openPorts, new TreeMap<>(batch.banners), complete);
+        }
+    }
+
+    /** Result of a bounded blocking scan; incomplete when the deadline cut it short. */
+    public static final class PortScan {
+        private final List<Integer> openPorts;
+        private final SortedMap<Integer, byte[]> banners;
+        private final boolean complete;
+
+        PortScan(List<Integer> openPorts, SortedMap<Integer, byte[]> banners, boolean complete) {
+            this.openPorts = openPorts;
+            this.banners = banners;
+            this.complete = complete;
+        }
+
+        public List<Integer> getOpenPorts() {
+            return openPorts;
+        }
+
+        // Service scans only
+        public SortedMap<Integer, byte[]> getBanners() {
+            return banners;
+        }
+
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+
+    public CompletableFuture<List<Integer>> scan(InetAddress address, int[] ports, int timeoutMillis,
+            PortListener listener) {
+        return scan(address, ports, timeoutMillis, null, listener);
+    }
+
+    /**
+     * Probes every port of one address. With a controller, each probe's timeout
+     * is the controller's estimate when it starts ({@code timeoutMillis} is
+     * ignored) and answered connects are reported back to it as RTT samples.
+     */
+    public CompletableFuture<List<Integer>> scan(InetAddress address, int[] ports, int timeoutMillis,
+            AdaptiveProbeController controller, PortListener listener) {
+        return start(address, ports, timeoutMillis, controller, listener, 0).future;
+    }
+
+    private Batch start(InetAddress address, int[] ports, int timeoutMillis, AdaptiveProbeController controller,
+            PortListener listener, int bannerTimeoutMillis) {
+        Batch batch = new Batch(address, ports, timeoutMillis, controller, listener, bannerTimeoutMillis);
+        if (ports.length == 0) {
+            batch.future.complete(new ArrayList<>());
+            return batch;
+        }
+
+        for (int i = Math.min(ports.length, maxInFlightPerHost); i > 0; i--) {
+            batch.submitNext();
+        }
+        return batch;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Worker worker : workers) {
+            worker.shutdown();
+        }
+    }
+
+    private final class Batch {
+        final InetAddress address;
+        final int[] ports;
+        final int timeoutMillis;
+        final AdaptiveProbeController controller;
+        final PortListener listener;
+        final int bannerTimeoutMillis;
+        final List<Integer> openPorts = new ArrayList<>();
+        final Map<Integer, byte[]> banners = new HashMap<>();
+        final AtomicInteger nextPort = new AtomicInteger();
+        final AtomicInteger remaining;
+        final CompletableFuture<List<Integer>> future = new CompletableFuture<>();
+
+        Batch(InetAddress address, int[] ports, int timeoutMillis, AdaptiveProbeController controller,
+                PortListener listener, int bannerTimeoutMillis) {
+            this.address = address;
+            this.ports = ports;
+            this.timeoutMillis = timeoutMillis;
+            this.controller = controller;
+            this.listener = listener;
+            this.bannerTimeoutMillis = bannerTimeoutMillis;
+            this.remaining = new AtomicInteger(ports.length);
+        }
+
+        // Hands the next unsent port to a worker; a cancelled batch drops all unsent ports at once
+        void submitNext() {
+            if (future.isCancelled()) {
+                int first = nextPort.getAndSet(ports.length);
+                if (first < ports.length && remaining.addAndGet(first - ports.length) == 0) {
+                    complete();
+                }
+                return;
+            }
+            int index = nextPort.getAndIncrement();
+            if (index < ports.length) {
+                Worker worker = workers[Math.floorMod(nextWorker.getAndIncrement(), workers.length)];
+                worker.submit(new Probe(this, ports[index], timeoutMillis));
+            }
+        }
+
+        void finish(int port, boolean open, ByteBuffer banner) {
+            if (open) {
+                synchronized (openPorts) {
+                    openPorts.add(port);
+                    if (bannerTimeoutMillis > 0) {
+                        byte[] bytes = new byte[banner != null ? banner.position() : 0];
+                        if (banner != null) {
+                            banner.flip().get(bytes);
+                        }
+                        banners.put(port, bytes);
+                    }
+                }
+                if (listener != null) {
+                    try {
+                        listener.onOpen(address, port);
+                    } catch (RuntimeException ignored) {
+                        // A misbehaving listener must not stall the selector thread
+                    }
+                }
+            }
+            if (remaining.decrementAndGet() == 0) {
+                complete();
+            } else {
+                submitNext();
+            }
+        }
+
+        private void complete() {
+            List<Integer> result;
+            synchronized (openPorts) {
+                result = new ArrayList<>(openPorts);
+            }
+            Collections.sort(result);
+            future.complete(result);
+        }
+    }
+
+    private static final class Probe {
+        final Batch batch;
+        final int port;
+        final int timeoutMillis;
+        SocketChannel channel;
+        long startedAt;
+        long deadline;
+        boolean done;
+        // Banner stage: the connection is open and being read
+        boolean reading;
+        boolean requestSent;
+        long readDeadline;
+        ByteBuffer banner;
+
+        Probe(Batch batch, int port, int timeoutMillis) {
+            this.batch = batch;
+            this.port = port;
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+
+    private static final class Worker extends Thread {
+        private final Selector selector;
+        private final Queue<Probe> pending = new ConcurrentLinkedQueue<>();
+        private final PriorityQueue<Probe> deadlines = new PriorityQueue<>(
+                Comparator.comparingLong((Probe p) -> p.deadline));
+        private final PriorityQueue<Probe> readDeadlines = new PriorityQueue<>(
+                Comparator.comparingLong((Probe p) -> p.readDeadline));
+        private final int maxInFlight;
+        private volatile boolean running = true;
+        private int inFlight;
+        private int adaptiveInFlight;
+        private long lastAdaptiveSweep;
+
+        Worker(String name, int maxInFlight) throws IOException {
+            super(name);
+            this.maxInFlight = maxInFlight;
+            setDaemon(true);
+            this.selector = Selector.open();
+        }
+
+        void submit(Probe probe) {
+            pending.add(probe);
+            selector.wakeup();
+        }
+
+        void shutdown() {
+            running = false;
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    admitPending();
+                    selector.select(nextTimeout());
+                    processSelected();
+                    expireProbes();
+                } catch (IOException | RuntimeException e) {
+                    // Keep the selector loop alive; individual probes fail on their own
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly((Probe) key.attachment());
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // Shutting down
+            }
+        }
+
+        private void admitPending() {
+            Probe probe;
+            while (inFlight < maxInFlight && (probe = pending.poll()) != null) {
+                start(probe);
+            }
+        }
+
+        private void start(Probe probe) {
+            if (probe.batch.future.isCancelled()) {
+                probe.done = true;
+                probe.batch.finish(probe.port, false, null);
+                return;
+            }
+            try {
+                SocketChannel channel = SocketChannel.open();
+                probe.channel = channel;
+                channel.configureBlocking(false);
+                if (channel.connect(new InetSocketAddress(probe.batch.address, probe.port))) {
+                    if (probe.batch.bannerTimeoutMillis > 0) {
+                        SelectionKey key = channel.register(selector, SelectionKey.OP_READ, probe);
+                        inFlight++;
+                        startReading(key, probe);
+                    } else {
+                        complete(probe, true);
+                    }
+                    return;
+                }
+                channel.register(selector, SelectionKey.OP_CONNECT, probe);
+                AdaptiveProbeController controller = probe.batch.controller;
+                int timeoutMillis = controller != null ? controller.timeoutMillis(probe.batch.address) : probe.timeoutMillis;
+                probe.startedAt = System.nanoTime();
+                probe.deadline = probe.startedAt + timeoutMillis * 1_000_000L;
+                deadlines.add(probe);
+                inFlight++;
+                if (controller != null) {
+                    adaptiveInFlight++;
+                }
+            } catch (IOException | RuntimeException e) {
+                // An unresolvable or unsupported address fails the probe, not the batch waiting on it
+                complete(probe, false);
+            }
+        }
+
+        private long nextTimeout() {
+            if (!pending.isEmpty() && inFlight < maxInFlight) {
+                return 1;
+            }
+            long now = System.nanoTime();
+            Probe next = deadlines.peek();
+            long millis = next == null ? 0 : Math.max(1, (next.deadline - now) / 1_000_000L);
+            Probe reader = readDeadlines.peek();
+            if (reader != null) {
+                long readMillis = Math.max(1, (reader.readDeadline - now) / 1_000_000L);
+                millis = millis == 0 ? readMillis : Math.min(millis, readMillis);
+            }
+            if (adaptiveInFlight > 0) {
+                long sweep = ADAPTIVE_SWEEP_NANOS / 1_000_000L;
+                millis = millis == 0 ? sweep : Math.min(millis, sweep);
+            }
+            return millis; // Zero blocks until new work arrives
+        }
+
+        private void processSelected() {
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                Probe probe = (Probe) key.attachment();
+                if (probe.reading) {
+                    readBanner(probe);
+                    continue;
+                }
+                boolean open;
+                boolean answered;
+                try {
+                    open = key.isValid() && key.isConnectable() && probe.channel.finishConnect();
+                    answered = open;
+                } catch (ConnectException e) {
+                    open = false;
+                    answered = true; // Refused: the host replied with a reset
+                } catch (IOException e) {
+                    open = false;
+                    answered = false;
+                }
+                if (answered && probe.batch.controller != null) {
+                    probe.batch.controller.onResponse(probe.batch.address, System.nanoTime() - probe.startedAt);
+                }
+                if (open && probe.batch.bannerTimeoutMillis > 0) {
+                    startReading(key, probe);
+                    continue;
+                }
+                inFlight--;
+                complete(probe, open);
+            }
+        }
+
+        // Keeps the connection that proved the port open and waits for the service to speak first
+        private void startReading(SelectionKey key, Probe probe) {
+            probe.reading = true;
+            probe.banner = ByteBuffer.allocate(BANNER_BYTES);
+            probe.readDeadline = System.nanoTime() + probe.batch.bannerTimeoutMillis * 1_000_000L / 3;
+            key.interestOps(SelectionKey.OP_READ);
+            readDeadlines.add(probe);
+        }
+
+        private void readBanner(Probe probe) {
+            int read;
+            try {
+                read = probe.channel.read(probe.banner);
+            } catch (IOException e) {
+                read = -1;
+            }
+            if (read != 0) {
+                inFlight--;
+                complete(probe, true);
+            }
+        }
+
+        private void expireReads(long now) {
+            Probe probe;
+            while ((probe = readDeadlines.peek()) != null && (probe.done || probe.readDeadline - now <= 0)) {
+                readDeadlines.poll();
+                if (probe.done) {
+                    continue;
+                }
+                if (!probe.requestSent) {
+                    // Silent so far: ask on the same connection for the rest of the banner timeout
+                    probe.requestSent = true;
+                    try {
+                        probe.channel.write(ByteBuffer.wrap(HTTP_PROBE));
+                        probe.readDeadline = now + probe.batch.bannerTimeoutMillis * 1_000_000L * 2 / 3;
+                        readDeadlines.add(probe);
+                        continue;
+                    } catch (IOException e) {
+                        // Closed by the peer; report the port without a banner
+                    }
+                }
+                inFlight--;
+                complete(probe, true);
+            }
+        }
+
+        private void expireProbes() {
+            long now = System.nanoTime();
+            Probe probe;
+            while ((probe = deadlines.peek()) != null
+                    && (probe.done || probe.reading || probe.deadline - now <= 0)) {
+                deadlines.poll();
+                if (!probe.done && !probe.reading) {
+                    inFlight--;
+                    timedOut(probe);
+                }
+            }
+
+            // Adaptive probes may time out earlier once the RTT estimate has dropped
+            if (adaptiveInFlight > 0 && now - lastAdaptiveSweep > ADAPTIVE_SWEEP_NANOS) {
+                lastAdaptiveSweep = now;
+                List<Probe> expired = new ArrayList<>();
+                for (SelectionKey key : selector.keys()) {
+                    Probe candidate = (Probe) key.attachment();
+                    AdaptiveProbeController controller = candidate.batch.controller;
+                    if (!candidate.done && !candidate.reading && controller != null && now - candidate.startedAt
+                            > controller.timeoutMillis(candidate.batch.address) * 1_000_000L) {
+                        expired.add(candidate);
+                    }
+                }
+                for (Probe candidate : expired) {
+                    inFlight--;
+                    timedOut(candidate);
+                }
+            }
+
+            expireReads(now);
+        }
+
+        private void timedOut(Probe probe) {
+            if (probe.batch.controller != null && !probe.batch.future.isCancelled()) {
+                probe.batch.controller.onTimeout(probe.batch.address);
+            }
+            complete(probe, false);
+        }
+
+        private void complete(Probe probe, boolean open) {
+            if (probe.done) {
+                return;
+            }
+            probe.done = true;
+            if (probe.startedAt != 0 && probe.batch.controller != null) {
+                adaptiveInFlight--;
+            }
+            closeQuietly(probe);
+            probe.batch.finish(probe.port, open, probe.banner);
+        }
+
+        private static void closeQuietly(Probe probe) {
+            if (probe != null && probe.channel != null) {
+                try {
+                    probe.channel.close();
+                } catch (IOException ignored) {
+                    // Nothing to recover
+                }
+            }
+        }
+    }
+}
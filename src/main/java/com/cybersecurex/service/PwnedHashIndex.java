@@ -0,0 +1,328 @@
+package com.cybersecurex.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Offline Pwned Passwords lookups against a local index file built from the
+ * downloadable SHA-1 "ordered by hash" dump by {@link #importDump}. The file
+ * holds a header, then a fan-out table with the first record index of every
+ * 16-bit hash prefix, then fixed-width records (20-byte hash, 4-byte count)
+ * in hash order. Everything is memory-mapped, in chunks of whole records
+ * since a single mapping stops at 2 GB. A lookup is a fan-out read plus a
+ * binary search of a few thousand records, all in the page cache, with no
+ * heap allocation. The index is used when hibp.index.path names one.
+ */
+@Component
+public class PwnedHashIndex {
+
+    private static final int MAGIC = 0x48494258; // "HIBX"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int FANOUT_BITS = 16;
+    private static final int FANOUT_ENTRIES = (1 << FANOUT_BITS) + 1;
+    private static final long DATA_OFFSET = HEADER_BYTES + FANOUT_ENTRIES * 8L;
+    static final int HASH_BYTES = 20;
+    static final int RECORD_BYTES = HASH_BYTES + 4;
+    private static final int RECORDS_PER_CHUNK = (1 << 30) / RECORD_BYTES;
+
+    @Value("${hibp.index.path:}")
+    private String indexPath;
+
+    private volatile Mapping mapping;
+    private volatile String loadError;
+
+    @PostConstruct
+    public void load() {
+        if (indexPath == null || indexPath.isBlank()) {
+            return;
+        }
+        try {
+            mapping = Mapping.open(Paths.get(indexPath.trim()));
+            loadError = null;
+        } catch (IOException | IllegalArgumentException e) {
+            mapping = null;
+            loadError = e.getMessage();
+        }
+    }
+
+    public boolean isAvailable() {
+        return mapping != null;
+    }
+
+    /** The hash's breach count, or 0 when it is not in the index. */
+    public int breachCount(byte[] sha1) {
+        Mapping current = mapping;
+        if (current == null) {
+            throw new IllegalStateException("No breach index loaded");
+        }
+        return current.count(sha1);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        Mapping current = mapping;
+        stats.put("configured", indexPath != null && !indexPath.isBlank());
+        stats.put("available", current != null);
+        if (current != null) {
+            stats.put("path", current.path.toString());
+            stats.put("hashes", current.records);
+            stats.put("importedAt", new Date(current.importedAt).toString());
+        }
+        if (loadError != null) {
+            stats.put("error", loadError);
+        }
+        return stats;
+    }
+
+    static final class Mapping {
+        final Path path;
+        final long records;
+        final long importedAt;
+        final MappedByteBuffer fanout;
+        final MappedByteBuffer[] chunks;
+
+        private Mapping(Path path, long records, long importedAt, MappedByteBuffer fanout,
+                MappedByteBuffer[] chunks) {
+            this.path = path;
+            this.records = records;
+            this.importedAt = importedAt;
+            this.fanout = fanout;
+            this.chunks = chunks;
+        }
+
+        static Mapping open(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                while (header.hasRemaining() && channel.read(header) >= 0) {
+                    // Fill the header
+                }
+                header.flip();
+                if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION
+                        || header.getInt() != FANOUT_BITS) {
+                    throw new IllegalArgumentException("Not a breach index file: " + path);
+                }
+                header.getInt(); // Reserved
+                long records = header.getLong();
+                long importedAt = header.getLong();
+                if (records < 0 || channel.size() != DATA_OFFSET + records * RECORD_BYTES) {
+                    throw new IllegalArgumentException("Truncated breach index file: " + path);
+                }
+
+                // Mappings stay valid after the channel is closed
+                MappedByteBuffer fanout = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES,
+                        FANOUT_ENTRIES * 8L);
+                MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((records + RECORDS_PER_CHUNK - 1)
+                        / RECORDS_PER_CHUNK)];
+                for (int i = 0; i < chunks.length; i++) {
+                    long first = (long) i * RECORDS_PER_CHUNK;
+                    long size = Math.min(RECORDS_PER_CHUNK, records - first) * RECORD_BYTES;
+                    chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, DATA_OFFSET + first * RECORD_BYTES, size);
+                }
+                return new Mapping(path, records, importedAt, fanout, chunks);
+            }
+        }
+
+        // The big-endian long at byteOffset (0 or 8) of the hash in the given record
+        long hashLong(long record, int byteOffset) {
+            return chunks[(int) (record / RECORDS_PER_CHUNK)]
+                    .getLong((int) (record % RECORDS_PER_CHUNK) * RECORD_BYTES + byteOffset);
+        }
+
+        int count(byte[] sha1) {
+            long high = readLong(sha1, 0);
+            long middle = readLong(sha1, 8);
+            int low = readInt(sha1, 16);
+
+            int bucket = (int) (high >>> (64 - FANOUT_BITS));
+            long from = fanout.getLong(bucket * 8);
+            long to = fanout.getLong((bucket + 1) * 8) - 1;
+            while (from <= to) {
+                long mid = (from + to) >>> 1;
+                MappedByteBuffer chunk = chunks[(int) (mid / RECORDS_PER_CHUNK)];
+                int offset = (int) (mid % RECORDS_PER_CHUNK) * RECORD_BYTES;
+                int cmp = Long.compareUnsigned(chunk.getLong(offset), high);
+                if (cmp == 0) {
+                    cmp = Long.compareUnsigned(chunk.getLong(offset + 8), middle);
+                }
+                if (cmp == 0) {
+                    cmp = Integer.compareUnsigned(chunk.getInt(offset + 16), low);
+                }
+                if (cmp < 0) {
+                    from = mid + 1;
+                } else if (cmp > 0) {
+                    to = mid - 1;
+                } else {
+                    return chunk.getInt(offset + HASH_BYTES);
+                }
+            }
+            return 0;
+        }
+    }
+
+    static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xff) << 24) | ((bytes[offset + 1] & 0xff) << 16)
+                | ((bytes[offset + 2] & 0xff) << 8) | (bytes[offset + 3] & 0xff);
+    }
+
+    /**
+     * Builds an index file from the HIBP SHA-1 dump ordered by hash
+     * ("HASH:COUNT" lines). Lines are parsed straight from the bytes and
+     * records are streamed to disk, so memory use does not depend on the
+     * dump size. The index is written next to the target and moved into
+     * place when complete.
+     *
+     * @return the number of hashes imported
+     * @throws IllegalArgumentException if the dump is not in hash order
+     */
+    public static long importDump(InputStream dump, Path index) throws IOException {
+        Path temp = index.resolveSibling(index.getFileName() + ".tmp");
+        long[] fanout = new long[FANOUT_ENTRIES];
+        long records = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.position(DATA_OFFSET);
+            ByteBuffer output = ByteBuffer.allocateDirect(RECORD_BYTES * 65536);
+            byte[] previous = new byte[HASH_BYTES];
+            byte[] hash = new byte[HASH_BYTES];
+            byte[] buffer = new byte[1 << 20];
+            int start = 0;
+            int limit = 0;
+            long lineNumber = 0;
+            boolean eof = false;
+            while (true) {
+                // Find the end of the next line, refilling the buffer as needed
+                int end = indexOf(buffer, '\n', start, limit);
+                if (end < 0 && !eof) {
+                    System.arraycopy(buffer, start, buffer, 0, limit - start);
+                    limit -= start;
+                    start = 0;
+                    if (limit == buffer.length) {
+                        throw new IllegalArgumentException("Line " + (lineNumber + 1) + " is too long");
+                    }
+                    int read = dump.read(buffer, limit, buffer.length - limit);
+                    if (read < 0) {
+                        eof = true;
+                    } else {
+                        limit += read;
+                    }
+                    continue;
+                }
+                if (end < 0) {
+                    end = limit; // Last line without a newline
+                    if (start == end) {
+                        break;
+                    }
+                }
+                lineNumber++;
+                int count = parseLine(buffer, start, end, hash);
+                if (count > 0) {
+                    if (records > 0 && Arrays.compareUnsigned(previous, hash) >= 0) {
+                        throw new IllegalArgumentException("Dump is not ordered by hash at line " + lineNumber);
+                    }
+                    if (output.remaining() < RECORD_BYTES) {
+                        output.flip();
+                        while (output.hasRemaining()) {
+                            out.write(output);
+                        }
+                        output.clear();
+                    }
+                    output.put(hash).putInt(count);
+                    fanout[((hash[0] & 0xff) << 8 | (hash[1] & 0xff)) + 1]++;
+                    System.arraycopy(hash, 0, previous, 0, HASH_BYTES);
+                    records++;
+                }
+                start = end + 1;
+                if (eof && start >= limit) {
+                    break;
+                }
+            }
+            output.flip();
+            while (output.hasRemaining()) {
+                out.write(output);
+            }
+
+            // Bucket sizes to first record indexes
+            for (int i = 1; i < FANOUT_ENTRIES; i++) {
+                fanout[i] += fanout[i - 1];
+            }
+            ByteBuffer head = ByteBuffer.allocate((int) DATA_OFFSET);
+            head.putInt(MAGIC).putInt(VERSION).putInt(FANOUT_BITS).putInt(0)
+                    .putLong(records).putLong(System.currentTimeMillis());
+            for (long entry : fanout) {
+                head.putLong(entry);
+            }
+            head.flip();
+            out.position(0);
+            while (head.hasRemaining()) {
+                out.write(head);
+            }
+            out.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return records;
+    }
+
+    // Parses "40 hex digits:count" (CR tolerated) into hash; returns the count, or 0 to skip the line
+    private static int parseLine(byte[] line, int start, int end, byte[] hash) {
+        if (end > start && line[end - 1] == '\r') {
+            end--;
+        }
+        if (end - start < HASH_BYTES * 2 + 2 || line[start + HASH_BYTES * 2] != ':') {
+            return 0;
+        }
+        for (int i = 0; i < HASH_BYTES; i++) {
+            int high = Character.digit(line[start + 2 * i], 16);
+            int low = Character.digit(line[start + 2 * i + 1], 16);
+            if (high < 0 || low < 0) {
+                return 0;
+            }
+            hash[i] = (byte) (high << 4 | low);
+        }
+        long count = 0;
+        for (int i = start + HASH_BYTES * 2 + 1; i < end; i++) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return 0;
+            }
+            count = Math.min(count * 10 + digit, Integer.MAX_VALUE);
+        }
+        return (int) count;
+    }
+
+    private static int indexOf(byte[] bytes, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,431 @@
+package com.cybersecurex.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of Pwned Passwords range responses (all breached hash suffixes for
+ * one 5-hex-digit SHA-1 prefix). Each response is parsed once, straight from
+ * the bytes, into sorted fixed-width binary records: an 18-byte suffix and a
+ * 4-byte count, about 60% of the text size. A lookup is then a binary search.
+ * Ranges are kept in one file per prefix under hibp.cache.dir, with the most
+ * recently used ones also held in memory. Both tiers are LRU-bounded. A range
+ * is refetched after hibp.cache.ttl-ms; if that fetch fails, the expired copy
+ * is used. Concurrent lookups for the same prefix share one fetch.
+ * hibp.api-url can point at a local stub.
+ */
+@Component
+public class PwnedRangeCache {
+
+    private static final int MAGIC = 0x48494250; // "HIBP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 1 + 8 + 4;
+    static final int PREFIX_NIBBLES = 5;
+    static final int SUFFIX_NIBBLES = 35;
+    static final int SUFFIX_BYTES = (SUFFIX_NIBBLES + 1) / 2;
+    static final int RECORD_BYTES = SUFFIX_BYTES + 4;
+
+    @Value("${hibp.api-url:https://api.pwnedpasswords.com/range/}")
+    private String apiUrl;
+
+    @Value("${hibp.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hibp.cache.dir:hibp-cache}")
+    private String cacheDir;
+
+    @Value("${hibp.cache.ttl-ms:86400000}")
+    private long ttlMillis;
+
+    @Value("${hibp.cache.max-entries:4096}")
+    private int maxEntries;
+
+    @Value("${hibp.cache.memory-entries:256}")
+    private int memoryEntries;
+
+    @Autowired
+    private OutboundHttpClient httpClient;
+
+    // Writes and deletes files in submission order, off the HTTP client's threads
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hibp-cache-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Path directory;
+
+    // Prefixes with a file on disk, in access order; the value is the fetch time
+    private final Map<String, Long> onDisk = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            if (size() > maxEntries) {
+                evictions.incrementAndGet();
+                String prefix = eldest.getKey();
+                submit(() -> Files.deleteIfExists(file(prefix)));
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final Map<String, Range> inMemory = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Range> eldest) {
+            return size() > Math.max(1, memoryEntries);
+        }
+    };
+
+    private final ConcurrentHashMap<String, CompletableFuture<Range>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong fetches = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong staleServed = new AtomicLong();
+    private final AtomicLong failedFetches = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            directory = Paths.get(cacheDir);
+            Files.createDirectories(directory);
+            // Oldest first, so the LRU order after a restart follows the fetch times
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.bin")) {
+                stream.forEach(files::add);
+            }
+            Map<Path, Long> modified = new HashMap<>();
+            for (Path file : files) {
+                modified.put(file, Files.getLastModifiedTime(file).toMillis());
+            }
+            files.sort(Comparator.comparing(modified::get));
+            synchronized (onDisk) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    onDisk.put(name.substring(0, name.length() - ".bin".length()), modified.get(file));
+                }
+            }
+        } catch (IOException e) {
+            directory = null; // Memory-only; the checks still work, just without persistence
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+    }
+
+    /**
+     * How often the password with this SHA-1 hash appears in breaches, or 0.
+     * Completes exceptionally when the range is neither cached nor fetchable.
+     */
+    public CompletableFuture<Integer> breachCount(byte[] sha1) {
+        return range(prefix(sha1)).thenApply(range -> range.count(sha1));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (onDisk) {
+            stats.put("diskEntries", onDisk.size());
+        }
+        synchronized (inMemory) {
+            stats.put("memoryEntries", inMemory.size());
+        }
+        stats.put("enabled", enabled);
+        stats.put("persistent", directory != null);
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMs", ttlMillis);
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("diskHits", diskHits.get());
+        stats.put("fetches", fetches.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("staleServed", staleServed.get());
+        stats.put("failedFetches", failedFetches.get());
+        stats.put("evictions", evictions.get());
+        stats.put("fetchesInFlight", inFlight.size());
+        return stats;
+    }
+
+    private CompletableFuture<Range> range(String prefix) {
+        Range cached = enabled ? cached(prefix) : null;
+        if (cached != null && System.currentTimeMillis() - cached.fetchedAt < ttlMillis) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<Range> created = new CompletableFuture<>();
+        CompletableFuture<Range> existing = inFlight.putIfAbsent(prefix, created);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing;
+        }
+        fetches.incrementAndGet();
+        fetch(prefix).whenComplete((range, error) -> {
+            if (error == null && enabled) {
+                store(prefix, range); // Before leaving inFlight, so no caller can miss both
+            }
+            inFlight.remove(prefix, created);
+            if (error == null) {
+                created.complete(range);
+            } else if (cached != null) {
+                staleServed.incrementAndGet();
+                created.complete(cached);
+            } else {
+                failedFetches.incrementAndGet();
+                created.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            }
+        });
+        return created;
+    }
+
+    private CompletableFuture<Range> fetch(String prefix) {
+        return httpClient.sendAsync(httpClient.request(URI.create(apiUrl + prefix))
+                        .setHeader("User-Agent", "CyberSecureX-PasswordChecker/1.0")
+                        .GET()
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new CompletionException(new IOException(
+                                "Breach database returned HTTP " + response.statusCode()));
+                    }
+                    return Range.parse(response.body(), System.currentTimeMillis());
+                });
+    }
+
+    private Range cached(String prefix) {
+        synchronized (inMemory) {
+            Range range = inMemory.get(prefix);
+            if (range != null) {
+                memoryHits.incrementAndGet();
+                return range;
+            }
+        }
+        boolean stored;
+        synchronized (onDisk) {
+            stored = directory != null && onDisk.get(prefix) != null;
+        }
+        if (!stored) {
+            return null;
+        }
+        Range range;
+        try {
+            range = Range.read(Files.readAllBytes(file(prefix)));
+        } catch (IOException | IllegalArgumentException e) {
+            synchronized (onDisk) {
+                onDisk.remove(prefix); // Missing or corrupt; it will be fetched again
+            }
+            return null;
+        }
+        diskHits.incrementAndGet();
+        synchronized (inMemory) {
+            inMemory.put(prefix, range);
+        }
+        return range;
+    }
+
+    private void store(String prefix, Range range) {
+        synchronized (inMemory) {
+            inMemory.put(prefix, range);
+        }
+        if (directory == null) {
+            return;
+        }
+        synchronized (onDisk) {
+            onDisk.put(prefix, range.fetchedAt);
+        }
+        submit(() -> {
+            Path target = file(prefix);
+            Path temp = directory.resolve(prefix + ".tmp");
+            Files.write(temp, range.encode());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        });
+    }
+
+    private void submit(IoTask task) {
+        try {
+            writer.execute(() -> {
+                try {
+                    task.run();
+                } catch (IOException e) {
+                    // A failed write only costs a refetch later
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private Path file(String prefix) {
+        return directory.resolve(prefix + ".bin");
+    }
+
+    private static String prefix(byte[] sha1) {
+        char[] hex = new char[PREFIX_NIBBLES];
+        for (int i = 0; i < PREFIX_NIBBLES; i++) {
+            hex[i] = Character.toUpperCase(Character.forDigit(nibble(sha1, i), 16));
+        }
+        return new String(hex);
+    }
+
+    static int nibble(byte[] bytes, int index) {
+        int b = bytes[index >> 1];
+        return (index & 1) == 0 ? (b >> 4) & 0xf : b & 0xf;
+    }
+
+    private interface IoTask {
+        void run() throws IOException;
+    }
+
+    /** The breached suffixes of one prefix as sorted fixed-width records. */
+    static final class Range {
+        final byte[] records;
+        final int count;
+        final long fetchedAt;
+
+        Range(byte[] records, int count, long fetchedAt) {
+            this.records = records;
+            this.count = count;
+            this.fetchedAt = fetchedAt;
+        }
+
+        /** Binary search for the hash's suffix; returns its breach count or 0. */
+        int count(byte[] sha1) {
+            byte[] key = new byte[SUFFIX_BYTES];
+            for (int i = 0; i < SUFFIX_NIBBLES; i++) {
+                key[i >> 1] |= (byte) ((i & 1) == 0 ? nibble(sha1, PREFIX_NIBBLES + i) << 4
+                        : nibble(sha1, PREFIX_NIBBLES + i));
+            }
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int offset = mid * RECORD_BYTES;
+                int cmp = Arrays.compareUnsigned(records, offset, offset + SUFFIX_BYTES, key, 0, SUFFIX_BYTES);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return ByteBuffer.wrap(records, offset + SUFFIX_BYTES, 4).getInt();
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Parses a range response ("SUFFIX:COUNT" lines, CRLF or LF) from its
+         * bytes. Malformed lines and padding entries with a zero count are
+         * skipped.
+         */
+        static Range parse(byte[] body, long fetchedAt) {
+            byte[] records = new byte[(body.length / (SUFFIX_NIBBLES + 2) + 1) * RECORD_BYTES];
+            int count = 0;
+            boolean sorted = true;
+            int line = 0;
+            while (line < body.length) {
+                int end = line;
+                while (end < body.length && body[end] != '\n') {
+                    end++;
+                }
+                int next = end + 1;
+                if (end > line && body[end - 1] == '\r') {
+                    end--;
+                }
+                int offset = count * RECORD_BYTES;
+                if (end - line > SUFFIX_NIBBLES + 1 && body[line + SUFFIX_NIBBLES] == ':'
+                        && parseRecord(body, line, end, records, offset)) {
+                    if (count > 0 && Arrays.compareUnsigned(records, offset - RECORD_BYTES,
+                            offset - RECORD_BYTES + SUFFIX_BYTES, records, offset, offset + SUFFIX_BYTES) > 0) {
+                        sorted = false;
+                    }
+                    count++;
+                } else {
+                    Arrays.fill(records, offset, offset + RECORD_BYTES, (byte) 0);
+                }
+                line = next;
+            }
+            byte[] trimmed = Arrays.copyOf(records, count * RECORD_BYTES);
+            return new Range(sorted ? trimmed : sort(trimmed, count), count, fetchedAt);
+        }
+
+        // Writes one record at offset; false for a malformed line or a zero count
+        private static boolean parseRecord(byte[] body, int start, int end, byte[] records, int offset) {
+            for (int i = 0; i < SUFFIX_NIBBLES; i++) {
+                int value = Character.digit(body[start + i], 16);
+                if (value < 0) {
+                    return false;
+                }
+                records[offset + (i >> 1)] |= (byte) ((i & 1) == 0 ? value << 4 : value);
+            }
+            long breaches = 0;
+            for (int i = start + SUFFIX_NIBBLES + 1; i < end; i++) {
+                int digit = body[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return false;
+                }
+                breaches = Math.min(breaches * 10 + digit, Integer.MAX_VALUE);
+            }
+            if (breaches == 0) {
+                return false;
+            }
+            ByteBuffer.wrap(records, offset + SUFFIX_BYTES, 4).putInt((int) breaches);
+            return true;
+        }
+
+        private static byte[] sort(byte[] records, int count) {
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(records, a * RECORD_BYTES,
+                    a * RECORD_BYTES + SUFFIX_BYTES, records, b * RECORD_BYTES, b * RECORD_BYTES + SUFFIX_BYTES));
+            byte[] sorted = new byte[records.length];
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(records, order[i] * RECORD_BYTES, sorted, i * RECORD_BYTES, RECORD_BYTES);
+            }
+            return sorted;
+        }
+
+        byte[] encode() {
+            return ByteBuffer.allocate(HEADER_BYTES + count * RECORD_BYTES)
+                    .putInt(MAGIC).put((byte) VERSION).putLong(fetchedAt).putInt(count)
+                    .put(records, 0, count * RECORD_BYTES)
+                    .array();
+        }
+
+        static Range read(byte[] file) {
+            ByteBuffer buffer = ByteBuffer.wrap(file);
+            if (file.length < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                throw new IllegalArgumentException("Not a range cache file");
+            }
+            long fetchedAt = buffer.getLong();
+            int count = buffer.getInt();
+            if (count < 0 || file.length != HEADER_BYTES + (long) count * RECORD_BYTES) {
+                throw new IllegalArgumentException("Truncated range cache file");
+            }
+            return new Range(Arrays.copyOfRange(file, HEADER_BYTES, file.length), count, fetchedAt);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.cybersecurex.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Asynchronous PTR lookups for scan results. Lookups run on a small dedicated
+ * pool, concurrent requests for the same address share one lookup, and answers
+ * (including "no PTR record") are kept in a bounded TTL cache shared by all
+ * scans. A lookup that exceeds the timeout completes with null while the
+ * underlying resolution finishes in the background and still fills the cache.
+ */
+@Component
+public class ReverseDnsResolver {
+
+    private static final int MAX_CACHE_ENTRIES = 16384;
+    private static final int RESOLVER_THREADS = 16;
+
+    @Value("${network.dns.timeout-ms:2000}")
+    private long timeoutMillis;
+
+    @Value("${network.dns.cache-ttl-ms:600000}")
+    private long cacheTtlMillis;
+
+    @Value("${network.dns.negative-ttl-ms:60000}")
+    private long negativeTtlMillis;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(RESOLVER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "reverse-dns");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Integer, CacheEntry> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, CacheEntry> eldest) {
+            return size() > MAX_CACHE_ENTRIES;
+        }
+    };
+
+    private final ConcurrentHashMap<Integer, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Resolves the PTR name of an IPv4 address. Completes with the hostname, or
+     * with null when there is no record or the lookup timed out.
+     */
+    public CompletableFuture<String> resolve(int address) {
+        CacheEntry cached;
+        synchronized (cache) {
+            cached = cache.get(address);
+        }
+        if (cached != null && cached.expiresAt - System.nanoTime() > 0) {
+            return CompletableFuture.completedFuture(cached.hostname);
+        }
+
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(address, created);
+        CompletableFuture<String> lookup = existing != null ? existing : created;
+        if (existing == null) {
+            CompletableFuture.supplyAsync(() -> lookup(address), executor).whenComplete((hostname, error) -> {
+                String result = error == null ? hostname : null;
+                store(address, result);
+                inFlight.remove(address, created);
+                created.complete(result);
+            });
+        }
+
+        // Each caller gets its own timeout view so one impatient caller does not cancel the shared lookup
+        return lookup.copy().completeOnTimeout(null, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public int cacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private String lookup(int address) {
+        InetAddress inetAddress = IpRange.toInetAddress(address);
+        String hostname = inetAddress.getHostName();
+        return hostname.equals(inetAddress.getHostAddress()) ? null : hostname;
+    }
+
+    private void store(int address, String hostname) {
+        long ttl = hostname != null ? cacheTtlMillis : negativeTtlMillis;
+        CacheEntry entry = new CacheEntry(hostname, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttl));
+        synchronized (cache) {
+            cache.put(address, entry);
+        }
+    }
+
+    private static final class CacheEntry {
+        final String hostname;
+        final long expiresAt;
+
+        CacheEntry(String hostname, long expiresAt) {
+            this.hostname = hostname;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
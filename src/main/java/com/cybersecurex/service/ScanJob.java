@@ -0,0 +1,150 @@
+package com.cybersecurex.service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Future;
+
+/**
+ * A queued or running scan submitted through the job API. Partial results are
+ * stored as copies so status polls never see a map the scanner is still
+ * updating.
+ */
+public class ScanJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String type;
+    private final String target;
+    private final String clientIP;
+    private final int concurrency;
+    private final NetworkScanOptions networkOptions;
+    private final LocalDateTime submittedTime = LocalDateTime.now();
+
+    private Status status = Status.QUEUED;
+    private LocalDateTime startedTime;
+    private LocalDateTime finishedTime;
+    private final List<Map<String, Object>> results = new ArrayList<>();
+    private Map<String, Object> summary;
+    private Future<?> execution;
+
+    ScanJob(String type, String target, String clientIP, int concurrency, NetworkScanOptions networkOptions) {
+        this.type = type;
+        this.target = target;
+        this.clientIP = clientIP;
+        this.concurrency = concurrency;
+        this.networkOptions = networkOptions;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public String getClientIP() {
+        return clientIP;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public NetworkScanOptions getNetworkOptions() {
+        return networkOptions;
+    }
+
+    public synchronized Status getStatus() {
+        return status;
+    }
+
+    public synchronized boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    synchronized LocalDateTime getFinishedTime() {
+        return finishedTime;
+    }
+
+    synchronized boolean start(Future<?> execution) {
+        if (status != Status.QUEUED) {
+            return false;
+        }
+        this.status = Status.RUNNING;
+        this.startedTime = LocalDateTime.now();
+        this.execution = execution;
+        return true;
+    }
+
+    synchronized void addResult(Map<String, Object> result) {
+        if (!isFinished()) {
+            results.add(new HashMap<>(result));
+        }
+    }
+
+    synchronized void updateResult(String key, Map<String, Object> result) {
+        if (isFinished()) {
+            return;
+        }
+        for (int i = 0; i < results.size(); i++) {
+            if (Objects.equals(results.get(i).get(key), result.get(key))) {
+                results.set(i, new HashMap<>(result));
+                return;
+            }
+        }
+    }
+
+    synchronized void finish(Map<String, Object> summary) {
+        if (isFinished()) {
+            return;
+        }
+        this.summary = summary;
+        this.status = "error".equals(summary.get("status")) ? Status.FAILED : Status.COMPLETED;
+        this.finishedTime = LocalDateTime.now();
+    }
+
+    synchronized void fail(String message) {
+        if (isFinished()) {
+            return;
+        }
+        this.summary = Map.of("status", "error", "message", message);
+        this.status = Status.FAILED;
+        this.finishedTime = LocalDateTime.now();
+    }
+
+    synchronized boolean cancel() {
+        if (isFinished()) {
+            return false;
+        }
+        this.status = Status.CANCELLED;
+        this.finishedTime = LocalDateTime.now();
+        if (execution != null) {
+            execution.cancel(true);
+        }
+        return true;
+    }
+
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> info = new HashMap<>();
+        info.put("jobId", id);
+        info.put("type", type);
+        info.put("target", target);
+        info.put("jobStatus", status.name());
+        info.put("concurrency", concurrency);
+        info.put("submittedTime", submittedTime.toString());
+        info.put("startedTime", startedTime != null ? startedTime.toString() : null);
+        info.put("finishedTime", finishedTime != null ? finishedTime.toString() : null);
+        info.put("resultCount", results.size());
+        info.put("results", new ArrayList<>(results));
+        info.put("summary", summary);
+        return info;
+    }
+}
@@ -0,0 +1,204 @@
+package com.cybersecurex.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs network and website scans as background jobs so HTTP workers return
+ * immediately. Jobs wait in a bounded queue and are started in submission
+ * order, skipping clients that already have their maximum number of jobs
+ * running, so one caller cannot monopolise the scanners.
+ */
+@Service
+public class ScanJobService {
+
+    public static final String TYPE_NETWORK = "network";
+    public static final String TYPE_WEBSITE = "website";
+
+    @Autowired
+    private NetworkScannerService networkScannerService;
+
+    @Autowired
+    private WebsiteScannerService websiteScannerService;
+
+    @Value("${scan.jobs.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${scan.jobs.max-running:4}")
+    private int maxRunningJobs;
+
+    @Value("${scan.jobs.max-running-per-client:1}")
+    private int maxRunningPerClient;
+
+    @Value("${scan.jobs.max-queued-per-client:5}")
+    private int maxQueuedPerClient;
+
+    @Value("${scan.jobs.default-concurrency:64}")
+    private int defaultConcurrency;
+
+    @Value("${scan.jobs.retention-ms:3600000}")
+    private long retentionMillis;
+
+    private ExecutorService runners;
+    private final Map<String, ScanJob> jobs = new ConcurrentHashMap<>();
+
+    // Scheduling state, guarded by this
+    private final Deque<ScanJob> queue = new ArrayDeque<>();
+    private final Map<String, Integer> runningPerClient = new HashMap<>();
+    private int running;
+
+    @PostConstruct
+    public void init() {
+        runners = Executors.newFixedThreadPool(maxRunningJobs, runnable -> {
+            Thread thread = new Thread(runnable, "scan-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runners.shutdownNow();
+    }
+
+    public Map<String, Object> submitNetworkScan(NetworkScanOptions options, String clientIP) {
+        if (options.getConcurrency() == null || options.getConcurrency() <= 0) {
+            options.setConcurrency(defaultConcurrency);
+        }
+        return submit(new ScanJob(TYPE_NETWORK, options.getTargets(), clientIP, options.getConcurrency(), options));
+    }
+
+    public Map<String, Object> submitWebsiteScan(String url, String clientIP) {
+        return submit(new ScanJob(TYPE_WEBSITE, url, clientIP, 1, null));
+    }
+
+    public Map<String, Object> getJob(String jobId) {
+        ScanJob job = jobs.get(jobId);
+        return job != null ? job.toMap() : null;
+    }
+
+    public Map<String, Object> cancelJob(String jobId) {
+        ScanJob job = jobs.get(jobId);
+        if (job == null) {
+            return null;
+        }
+
+        synchronized (this) {
+            queue.remove(job);
+        }
+        boolean cancelled = job.cancel();
+
+        Map<String, Object> result = job.toMap();
+        result.put("status", cancelled ? "success" : "error");
+        result.put("message", cancelled ? "Scan job cancelled" : "Scan job has already finished");
+        return result;
+    }
+
+    private Map<String, Object> submit(ScanJob job) {
+        Map<String, Object> result = new HashMap<>();
+        purgeFinishedJobs();
+
+        synchronized (this) {
+            if (queue.size() >= queueCapacity) {
+                result.put("status", "error");
+                result.put("message", "Scan queue is full, please retry later");
+                return result;
+            }
+            long queuedForClient = queue.stream().filter(q -> q.getClientIP().equals(job.getClientIP())).count();
+            if (queuedForClient >= maxQueuedPerClient) {
+                result.put("status", "error");
+                result.put("message", "Too many queued scans for this client");
+                return result;
+            }
+            jobs.put(job.getId(), job);
+            queue.addLast(job);
+        }
+        dispatch();
+
+        result.putAll(job.toMap());
+        result.put("status", "success");
+        result.put("message", "Scan job accepted");
+        return result;
+    }
+
+    // Starts queued jobs while there is capacity, oldest first, skipping clients at their limit
+    private void dispatch() {
+        List<ScanJob> toStart = new ArrayList<>();
+        synchronized (this) {
+            Iterator<ScanJob> it = queue.iterator();
+            while (running < maxRunningJobs && it.hasNext()) {
+                ScanJob job = it.next();
+                if (runningPerClient.getOrDefault(job.getClientIP(), 0) >= maxRunningPerClient) {
+                    continue;
+                }
+                it.remove();
+                running++;
+                runningPerClient.merge(job.getClientIP(), 1, Integer::sum);
+                toStart.add(job);
+            }
+        }
+
+        for (ScanJob job : toStart) {
+            FutureTask<Void> task = new FutureTask<>(() -> run(job), null);
+            if (job.start(task)) {
+                // The slot is released even if the job is cancelled before it begins running
+                runners.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        release(job);
+                    }
+                });
+            } else {
+                release(job); // Cancelled between dequeue and start
+            }
+        }
+    }
+
+    private void run(ScanJob job) {
+        try {
+            if (TYPE_NETWORK.equals(job.getType())) {
+                Map<String, Object> summary = networkScannerService.scanNetwork(job.getNetworkOptions(),
+                        new NetworkScanListener() {
+                            @Override
+                            public void onDevice(Map<String, Object> device) {
+                                job.addResult(device);
+                            }
+
+                            @Override
+                            public void onDeviceUpdated(Map<String, Object> device) {
+                                job.updateResult("ip", device);
+                            }
+                        });
+                job.finish(summary);
+            } else {
+                Map<String, Object> result = websiteScannerService.scanWebsite(job.getTarget());
+                job.addResult(result);
+                job.finish(result);
+            }
+        } catch (RuntimeException e) {
+            job.fail("Scan job failed: " + e.getMessage());
+        }
+    }
+
+    private void release(ScanJob job) {
+        synchronized (this) {
+            running--;
+            runningPerClient.computeIfPresent(job.getClientIP(), (ip, count) -> count > 1 ? count - 1 : null);
+        }
+        dispatch();
+    }
+
+    private void purgeFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(retentionMillis));
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedTime().isBefore(cutoff));
+    }
+}
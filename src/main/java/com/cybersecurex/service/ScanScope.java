@@ -0,0 +1,88 @@
+package com.cybersecurex.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Runs a group of scan tasks under one overall deadline. Results are collected
+ * as tasks finish; anything still queued or running when the deadline passes
+ * (or when the scope is closed) is cancelled and interrupted.
+ */
+class ScanScope<T> implements AutoCloseable {
+
+    private final BlockingQueue<Future<T>> completed = new LinkedBlockingQueue<>();
+    private final CompletionService<T> completionService;
+    private final Map<Executor, CompletionService<T>> otherExecutors = new HashMap<>();
+    private final List<Future<T>> futures = new ArrayList<>();
+    private final long deadlineNanos;
+    private boolean deadlineReached;
+
+    ScanScope(Executor executor, long deadlineMillis) {
+        this.completionService = new ExecutorCompletionService<>(executor, completed);
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+    }
+
+    void fork(Callable<T> task) {
+        futures.add(completionService.submit(task));
+    }
+
+    /** Runs the task on another executor, e.g. one with a tighter concurrency limit, in this scope. */
+    void fork(Callable<T> task, Executor executor) {
+        futures.add(otherExecutors.computeIfAbsent(executor, e -> new ExecutorCompletionService<>(e, completed))
+                .submit(task));
+    }
+
+    /**
+     * Waits for tasks until all have completed or the deadline passes, returning
+     * the non-null results in completion order.
+     */
+    List<T> join() throws InterruptedException {
+        List<T> results = new ArrayList<>();
+        join(results::add);
+        return results;
+    }
+
+    /**
+     * Hands each non-null result to the consumer as soon as its task completes.
+     * An exception thrown by the consumer aborts the join and cancels the rest.
+     */
+    void join(Consumer<T> onResult) throws InterruptedException {
+        for (int collected = 0; collected < futures.size(); collected++) {
+            long remaining = deadlineNanos - System.nanoTime();
+            Future<T> future = remaining > 0 ? completed.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (future == null) {
+                deadlineReached = true;
+                break;
+            }
+            T result;
+            try {
+                result = future.get();
+            } catch (ExecutionException | CancellationException e) {
+                continue; // Skip failed scans
+            }
+            if (result != null) {
+                onResult.accept(result);
+            }
+        }
+        cancelOutstanding();
+    }
+
+    boolean isDeadlineReached() {
+        return deadlineReached;
+    }
+
+    private void cancelOutstanding() {
+        for (Future<T> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    @Override
+    public void close() {
+        cancelOutstanding();
+    }
+}
@@ -0,0 +1,79 @@
+package com.cybersecurex.service;
+
+import com.cybersecurex.model.ScanSnapshot;
+import com.cybersecurex.repository.ScanSnapshotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Persists the result of every network scan so a later scan of the same
+ * targets can run in delta mode. Only the newest snapshots per target set
+ * are kept.
+ */
+@Service
+public class ScanSnapshotService {
+
+    @Autowired
+    private ScanSnapshotRepository snapshotRepository;
+
+    @Value("${network.snapshots.enabled:true}")
+    private boolean enabled;
+
+    @Value("${network.snapshots.keep:10}")
+    private int keep;
+
+    /** Latest stored scan of exactly these targets, if any. */
+    Optional<Previous> latest(String targets) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        try {
+            Optional<ScanSnapshot> stored = snapshotRepository.findFirstByTargetsOrderByScanTimeDesc(targets);
+            if (stored.isEmpty()) {
+                return Optional.empty();
+            }
+            ScanSnapshot snapshot = stored.get();
+            return Optional.of(new Previous(NetworkSnapshot.decode(snapshot.getHosts()), snapshot.getScanTime(),
+                    snapshot.isComplete(), snapshot.getLastFullSweep()));
+        } catch (IOException | RuntimeException e) {
+            return Optional.empty(); // Unreadable history: fall back to a full scan
+        }
+    }
+
+    void save(String targets, NetworkSnapshot hosts, boolean complete, LocalDateTime lastFullSweep) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            snapshotRepository.save(new ScanSnapshot(targets, hosts.size(), complete, lastFullSweep,
+                    hosts.encode()));
+
+            List<ScanSnapshot> history = snapshotRepository.findByTargetsOrderByScanTimeDesc(targets);
+            if (history.size() > keep) {
+                snapshotRepository.deleteAll(history.subList(Math.max(1, keep), history.size()));
+            }
+        } catch (RuntimeException e) {
+            // History is an optimisation; a failed write must not fail the scan
+        }
+    }
+
+    static final class Previous {
+        final NetworkSnapshot hosts;
+        final LocalDateTime scanTime;
+        final boolean complete;
+        final LocalDateTime lastFullSweep;
+
+        Previous(NetworkSnapshot hosts, LocalDateTime scanTime, boolean complete, LocalDateTime lastFullSweep) {
+            this.hosts = hosts;
+            this.scanTime = scanTime;
+            this.complete = complete;
+            this.lastFullSweep = lastFullSweep;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.cybersecurex.service;
+
+import java.util.*;
+
+/**
+ * A set of IPv4 scan targets built from CIDR blocks and ranges. Overlapping
+ * ranges are merged, hosts are addressed by a dense index, and live hosts are
+ * recorded in a bitset over that index rather than in per-host objects.
+ */
+public final class ScanTargets {
+
+    public static final int MAX_HOSTS = 1 << 17; // Two /16s
+
+    private final IpRange[] ranges;
+    private final long[] offsets;
+    private final int size;
+    private final BitSet liveHosts;
+
+    public ScanTargets(List<IpRange> input) {
+        List<IpRange> sorted = new ArrayList<>(input);
+        sorted.sort((a, b) -> Integer.compareUnsigned(a.first(), b.first()));
+
+        // Merge overlapping or adjacent ranges so no host is probed twice
+        List<IpRange> merged = new ArrayList<>();
+        for (IpRange range : sorted) {
+            if (!merged.isEmpty()) {
+                IpRange previous = merged.get(merged.size() - 1);
+                long previousEnd = Integer.toUnsignedLong(previous.last());
+                if (Integer.toUnsignedLong(range.first()) <= previousEnd + 1) {
+                    if (Integer.toUnsignedLong(range.last()) > previousEnd) {
+                        merged.set(merged.size() - 1, IpRange.of(previous.first(), range.last()));
+                    }
+                    continue;
+                }
+            }
+            merged.add(range);
+        }
+
+        this.ranges = merged.toArray(new IpRange[0]);
+        this.offsets = new long[ranges.length];
+        long total = 0;
+        for (int i = 0; i < ranges.length; i++) {
+            offsets[i] = total;
+            total += ranges[i].size();
+        }
+        if (total > MAX_HOSTS) {
+            throw new IllegalArgumentException("Scan targets cover " + total + " hosts (maximum " + MAX_HOSTS + ")");
+        }
+        this.size = (int) total;
+        this.liveHosts = new BitSet(size);
+    }
+
+    /**
+     * Parses a comma or whitespace separated list of CIDR blocks, ranges and
+     * single addresses.
+     */
+    public static ScanTargets parse(String specs) {
+        List<IpRange> ranges = new ArrayList<>();
+        for (String spec : specs.split("[,\\s]+")) {
+            if (!spec.isEmpty()) {
+                ranges.add(IpRange.parse(spec));
+            }
+        }
+        if (ranges.isEmpty()) {
+            throw new IllegalArgumentException("No scan targets given");
+        }
+        return new ScanTargets(ranges);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int indexOf(int address) {
+        for (int i = 0; i < ranges.length; i++) {
+            if (ranges[i].contains(address)) {
+                return (int) (offsets[i] + Integer.toUnsignedLong(address - ranges[i].first()));
+            }
+        }
+        return -1;
+    }
+
+    public void markLive(int index) {
+        synchronized (liveHosts) {
+            liveHosts.set(index);
+        }
+    }
+
+    public boolean isLive(int index) {
+        synchronized (liveHosts) {
+            return liveHosts.get(index);
+        }
+    }
+
+    public int liveCount() {
+        synchronized (liveHosts) {
+            return liveHosts.cardinality();
+        }
+    }
+
+    public List<IpRange> ranges() {
+        return List.of(ranges);
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (IpRange range : ranges) {
+            joiner.add(range.toString());
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,157 @@
+package com.cybersecurex.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Identifies a service from the banner read on its open port. Signatures are
+ * compiled once at startup from the bundled service-signatures.txt, or from
+ * network.fingerprint.signatures-path, and tried in file order.
+ */
+@Component
+public class ServiceFingerprinter {
+
+    private static final int MAX_BANNER_CHARS = 200;
+
+    @Value("${network.fingerprint.signatures-path:}")
+    private String signaturesPath;
+
+    private volatile List<Signature> signatures = new ArrayList<>();
+
+    @PostConstruct
+    public void load() {
+        List<Signature> compiled = new ArrayList<>();
+        try (InputStream in = openSource()) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Signature signature = parseLine(line);
+                if (signature != null) {
+                    compiled.add(signature);
+                }
+            }
+        } catch (IOException e) {
+            // Fingerprinting is best effort; keep whatever was parsed
+        }
+        signatures = compiled;
+    }
+
+    /** The first signature matching the banner, or null when none does or nothing was read. */
+    public Fingerprint match(byte[] banner) {
+        if (banner == null || banner.length == 0) {
+            return null;
+        }
+        String text = new String(banner, StandardCharsets.ISO_8859_1);
+        for (Signature signature : signatures) {
+            Matcher matcher = signature.pattern.matcher(text);
+            if (matcher.find()) {
+                String product = matcher.groupCount() >= 1 ? matcher.group(1) : null;
+                return new Fingerprint(signature.service, signature.description, signature.riskLevel,
+                        product != null ? product.trim() : null);
+            }
+        }
+        return null;
+    }
+
+    /** First line of the banner with control characters replaced, for display. */
+    public static String printable(byte[] banner) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < banner.length && sb.length() < MAX_BANNER_CHARS; i++) {
+            int c = banner[i] & 0xff;
+            if (c == '\r' || c == '\n') {
+                if (sb.length() > 0) {
+                    break;
+                }
+            } else {
+                sb.append(c >= 0x20 && c < 0x7f ? (char) c : '.');
+            }
+        }
+        return sb.toString();
+    }
+
+    public int size() {
+        return signatures.size();
+    }
+
+    private InputStream openSource() throws IOException {
+        if (signaturesPath != null && !signaturesPath.isBlank()) {
+            return Files.newInputStream(Paths.get(signaturesPath));
+        }
+        return new ClassPathResource("service-signatures.txt").getInputStream();
+    }
+
+    // service|risk|description|regex; the regex may itself contain '|'
+    private static Signature parseLine(String line) {
+        if (line.isBlank() || line.startsWith("#")) {
+            return null;
+        }
+        String[] fields = line.split("\\|", 4);
+        if (fields.length < 4) {
+            return null;
+        }
+        try {
+            return new Signature(fields[0].trim(), fields[1].trim(), fields[2].trim(), Pattern.compile(fields[3]));
+        } catch (PatternSyntaxException e) {
+            return null; // Skip a broken signature rather than the whole catalog
+        }
+    }
+
+    private static final class Signature {
+        final String service;
+        final String riskLevel;
+        final String description;
+        final Pattern pattern;
+
+        Signature(String service, String riskLevel, String description, Pattern pattern) {
+            this.service = service;
+            this.riskLevel = riskLevel;
+            this.description = description;
+            this.pattern = pattern;
+        }
+    }
+
+    public static final class Fingerprint {
+        private final String service;
+        private final String description;
+        private final String riskLevel;
+        private final String product;
+
+        Fingerprint(String service, String description, String riskLevel, String product) {
+            this.service = service;
+            this.description = description;
+            this.riskLevel = riskLevel;
+            this.product = product;
+        }
+
+        public String getService() {
+            return service;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public String getRiskLevel() {
+            return riskLevel;
+        }
+
+        public String getProduct() {
+            return product;
+        }
+    }
+}
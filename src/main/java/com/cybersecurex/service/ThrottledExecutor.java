@@ -0,0 +1,74 @@
+package com.cybersecurex.service;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.IntSupplier;
+
+/**
+ * Caps how many tasks one scan may have running on a shared pool. Tasks over
+ * the limit wait here instead of in the pool's queue, so concurrent scans
+ * interleave on the pool rather than one scan's backlog starving the others.
+ * The limit may be dynamic; it is re-read whenever a task is admitted.
+ */
+class ThrottledExecutor implements Executor {
+
+    private final Executor delegate;
+    private final IntSupplier maxConcurrent;
+    private final Queue<Runnable> waiting = new ArrayDeque<>();
+    private int active;
+
+    ThrottledExecutor(Executor delegate, int maxConcurrent) {
+        this(delegate, () -> maxConcurrent);
+    }
+
+    ThrottledExecutor(Executor delegate, IntSupplier maxConcurrent) {
+        this.delegate = delegate;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        synchronized (this) {
+            if (active >= Math.max(1, maxConcurrent.getAsInt())) {
+                waiting.add(task);
+                return;
+            }
+            active++;
+        }
+        dispatch(task);
+    }
+
+    private void dispatch(Runnable task) {
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    next();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            next();
+            throw e;
+        }
+    }
+
+    private void next() {
+        synchronized (this) {
+            active--;
+        }
+        // Refill free slots; the limit may have grown or shrunk since the task started
+        while (true) {
+            Runnable task;
+            synchronized (this) {
+                if (active >= Math.max(1, maxConcurrent.getAsInt()) || (task = waiting.poll()) == null) {
+                    return;
+                }
+                active++;
+            }
+            dispatch(task);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.cybersecurex.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds devices that ignore ICMP and have no common TCP port open by asking
+ * the local networks, in one round trip, who speaks mDNS, SSDP, NetBIOS or
+ * SNMP. Every query goes out from a single non-blocking DatagramChannel
+ * (multicast on each interface, broadcast on each subnet) and all answers
+ * are collected from that channel until the listen window closes.
+ */
+@Component
+public class UdpDiscovery {
+
+    private static final int MDNS_PORT = 5353;
+    private static final int SSDP_PORT = 1900;
+    private static final int NETBIOS_PORT = 137;
+    private static final int SNMP_PORT = 161;
+
+    private static final InetSocketAddress MDNS_GROUP = new InetSocketAddress(
+            address(224, 0, 0, 251), MDNS_PORT);
+    private static final InetSocketAddress SSDP_GROUP = new InetSocketAddress(
+            address(239, 255, 255, 250), SSDP_PORT);
+
+    // sysDescr.0 (1.3.6.1.2.1.1.1.0) in BER
+    private static final byte[] SYS_DESCR_OID = { 0x2b, 0x06, 0x01, 0x02, 0x01, 0x01, 0x01, 0x00 };
+
+    @Value("${network.discovery.window-ms:1000}")
+    private long windowMillis;
+
+    @Value("${network.discovery.snmp-community:public}")
+    private String snmpCommunity;
+
+    /**
+     * Sends every query and blocks for the listen window. Returns the
+     * responders keyed by int IPv4 address; empty if nothing could be sent.
+     */
+    public Map<Integer, Responder> discover(Collection<String> interfaceNames, Collection<Inet4Address> broadcasts) {
+        Map<Integer, Responder> responders = new HashMap<>();
+        try (DatagramChannel channel = DatagramChannel.open(StandardProtocolFamily.INET);
+                Selector selector = Selector.open()) {
+            channel.setOption(StandardSocketOptions.SO_BROADCAST, true);
+            channel.setOption(StandardSocketOptions.IP_MULTICAST_TTL, 1);
+            channel.bind(new InetSocketAddress(0));
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ);
+
+            ByteBuffer mdns = ByteBuffer.wrap(mdnsQuery());
+            ByteBuffer ssdp = ByteBuffer.wrap(ssdpSearch());
+            ByteBuffer netbios = ByteBuffer.wrap(netbiosStatusQuery());
+            ByteBuffer snmp = ByteBuffer.wrap(snmpGetSysDescr(snmpCommunity));
+
+            for (String name : interfaceNames) {
+                NetworkInterface networkInterface = NetworkInterface.getByName(name);
+                if (networkInterface == null || !networkInterface.supportsMulticast()) {
+                    continue;
+                }
+                channel.setOption(StandardSocketOptions.IP_MULTICAST_IF, networkInterface);
+                send(channel, mdns, MDNS_GROUP);
+                send(channel, ssdp, SSDP_GROUP);
+            }
+            for (Inet4Address broadcast : broadcasts) {
+                send(channel, netbios, new InetSocketAddress(broadcast, NETBIOS_PORT));
+                send(channel, snmp, new InetSocketAddress(broadcast, SNMP_PORT));
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(9000);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMillis);
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+                if (selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining))) == 0) {
+                    continue;
+                }
+                selector.selectedKeys().clear();
+                SocketAddress source;
+                while ((source = channel.receive(buffer)) != null) {
+                    buffer.flip();
+                    handle((InetSocketAddress) source, buffer, responders);
+                    buffer.clear();
+                }
+            }
+        } catch (IOException e) {
+            // Discovery is best effort; keep whatever answered
+        }
+        return responders;
+    }
+
+    private static void send(DatagramChannel channel, ByteBuffer packet, InetSocketAddress target) {
+        try {
+            channel.send(packet.duplicate(), target);
+        } catch (IOException e) {
+            // Unreachable network or broadcast not permitted here; the other probes still go out
+        }
+    }
+
+    private static void handle(InetSocketAddress source, ByteBuffer packet, Map<Integer, Responder> responders) {
+        if (!(source.getAddress() instanceof Inet4Address)) {
+            return;
+        }
+        int address = IpRange.toInt((Inet4Address) source.getAddress());
+        Responder responder = responders.computeIfAbsent(address, Responder::new);
+        try {
+            switch (source.getPort()) {
+                case MDNS_PORT:
+                    responder.protocols.add("mDNS");
+                    parseMdns(packet, responder);
+                    break;
+                case SSDP_PORT:
+                    responder.protocols.add("SSDP");
+                    parseSsdp(packet, responder);
+                    break;
+                case NETBIOS_PORT:
+                    responder.protocols.add("NetBIOS");
+                    parseNetbios(packet, responder);
+                    break;
+                case SNMP_PORT:
+                    responder.protocols.add("SNMP");
+                    parseSnmp(packet, responder);
+                    break;
+                default:
+                    responders.remove(address, responder);
+            }
+        } catch (RuntimeException e) {
+            // Malformed answer; the responder itself is still alive
+        }
+    }
+
+    // DNS-SD service enumeration; the source port is not 5353, so responders answer us directly
+    private static byte[] mdnsQuery() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.putShort((short) 0).putShort((short) 0).putShort((short) 1)
+                .putShort((short) 0).putShort((short) 0).putShort((short) 0);
+        for (String label : "_services._dns-sd._udp.local".split("\\.")) {
+            buffer.put((byte) label.length()).put(label.getBytes(StandardCharsets.US_ASCII));
+        }
+        buffer.put((byte) 0).putShort((short) 12).putShort((short) 0x8001); // PTR, IN with unicast-response bit
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static byte[] ssdpSearch() {
+        return ("M-SEARCH * HTTP/1.1\r\n"
+                + "HOST: 239.255.255.250:1900\r\n"
+                + "MAN: \"ssdp:discover\"\r\n"
+                + "MX: 1\r\n"
+                + "ST: ssdp:all\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // NBSTAT query for the wildcard name "*"
+    private static byte[] netbiosStatusQuery() {
+        ByteBuffer buffer = ByteBuffer.allocate(50);
+        buffer.putShort((short) ThreadLocalRandom.current().nextInt()).putShort((short) 0x0010)
+                .putShort((short) 1).putShort((short) 0).putShort((short) 0).putShort((short) 0);
+        buffer.put((byte) 32).put((byte) 'C').put((byte) 'K');
+        for (int i = 0; i < 15; i++) {
+            buffer.put((byte) 'A').put((byte) 'A');
+        }
+        buffer.put((byte) 0).putShort((short) 0x21).putShort((short) 1);
+        return buffer.array();
+    }
+
+    // SNMPv1 GetRequest for sysDescr.0
+    private static byte[] snmpGetSysDescr(String community) {
+        byte[] name = community.getBytes(StandardCharsets.US_ASCII);
+        int requestId = ThreadLocalRandom.current().nextInt() & 0x7fffffff;
+        byte[] varbinds = { 0x30, 0x0e, 0x30, 0x0c, 0x06, 0x08, 0x2b, 0x06, 0x01, 0x02, 0x01, 0x01, 0x01, 0x00,
+                0x05, 0x00 };
+        int pduLength = 6 + 3 + 3 + varbinds.length;
+        int messageLength = 3 + 2 + name.length + 2 + pduLength;
+
+        ByteBuffer buffer = ByteBuffer.allocate(2 + messageLength);
+        buffer.put((byte) 0x30).put((byte) messageLength);
+        buffer.put((byte) 0x02).put((byte) 1).put((byte) 0); // version 1
+        buffer.put((byte) 0x04).put((byte) name.length).put(name);
+        buffer.put((byte) 0xa0).put((byte) pduLength);
+        buffer.put((byte) 0x02).put((byte) 4).putInt(requestId);
+        buffer.put((byte) 0x02).put((byte) 1).put((byte) 0); // error-status
+        buffer.put((byte) 0x02).put((byte) 1).put((byte) 0); // error-index
+        buffer.put(varbinds);
+        return buffer.array();
+    }
+
+    private static void parseMdns(ByteBuffer packet, Responder responder) {
+        if (packet.remaining() < 12) {
+            return;
+        }
+        int questions = packet.getShort(4) & 0xffff;
+        int records = (packet.getShort(6) & 0xffff) + (packet.getShort(8) & 0xffff) + (packet.getShort(10) & 0xffff);
+        packet.position(12);
+        for (int i = 0; i < questions; i++) {
+            readName(packet);
+            packet.position(packet.position() + 4);
+        }
+        for (int i = 0; i < records && packet.remaining() >= 10; i++) {
+            String owner = readName(packet);
+            int type = packet.getShort() & 0xffff;
+            packet.position(packet.position() + 6); // class, TTL
+            int length = packet.getShort() & 0xffff;
+            int end = packet.position() + length;
+            if (type == 12) {
+                String target = readName(packet);
+                if (owner.startsWith("_services.")) {
+                    responder.serviceTypes.add(stripLocal(target));
+                }
+            } else if (type == 1 && responder.name == null && owner.endsWith(".local")) {
+                responder.name = stripLocal(owner);
+            }
+            packet.position(end);
+        }
+    }
+
+    private static String readName(ByteBuffer packet) {
+        StringBuilder name = new StringBuilder();
+        int position = packet.position();
+        int resume = -1;
+        for (int jumps = 0; jumps < 32; ) {
+            int length = packet.get(position) & 0xff;
+            if ((length & 0xc0) == 0xc0) {
+                if (resume < 0) {
+                    resume = position + 2;
+                }
+                position = ((length & 0x3f) << 8) | (packet.get(position + 1) & 0xff);
+                jumps++;
+                continue;
+            }
+            if (length == 0) {
+                position++;
+                break;
+            }
+            if (name.length() > 0) {
+                name.append('.');
+            }
+            for (int i = 1; i <= length; i++) {
+                name.append((char) (packet.get(position + i) & 0xff));
+            }
+            position += length + 1;
+        }
+        packet.position(resume >= 0 ? resume : position);
+        return name.toString();
+    }
+
+    private static String stripLocal(String name) {
+        return name.endsWith(".local") ? name.substring(0, name.length() - 6) : name;
+    }
+
+    private static void parseSsdp(ByteBuffer packet, Responder responder) {
+        String response = StandardCharsets.US_ASCII.decode(packet).toString();
+        for (String line : response.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("SERVER")) {
+                responder.description = line.substring(colon + 1).trim();
+                return;
+            }
+        }
+    }
+
+    private static void parseNetbios(ByteBuffer packet, Responder responder) {
+        // Header, then the echoed question name (32 encoded bytes plus length and terminator)
+        int position = 12 + 34;
+        if ((packet.get(12) & 0xc0) == 0xc0) {
+            position = 12 + 2;
+        }
+        position += 10; // type, class, TTL, rdlength
+        int names = packet.get(position) & 0xff;
+        position++;
+        for (int i = 0; i < names && position + 18 <= packet.limit(); i++, position += 18) {
+            int suffix = packet.get(position + 15) & 0xff;
+            boolean group = (packet.get(position + 16) & 0x80) != 0;
+            if (suffix == 0 && !group) {
+                byte[] raw = new byte[15];
+                packet.get(position, raw);
+                responder.name = new String(raw, StandardCharsets.US_ASCII).trim();
+                return;
+            }
+        }
+    }
+
+    private static void parseSnmp(ByteBuffer packet, Responder responder) {
+        byte[] data = new byte[packet.remaining()];
+        packet.get(data);
+        outer:
+        for (int i = 0; i + SYS_DESCR_OID.length + 2 < data.length; i++) {
+            for (int j = 0; j < SYS_DESCR_OID.length; j++) {
+                if (data[i + j] != SYS_DESCR_OID[j]) {
+                    continue outer;
+                }
+            }
+            int position = i + SYS_DESCR_OID.length;
+            if (data[position] != 0x04) {
+                return;
+            }
+            int length = data[position + 1] & 0xff;
+            position += 2;
+            if ((length & 0x80) != 0) {
+                int octets = length & 0x7f;
+                length = 0;
+                for (int k = 0; k < octets; k++) {
+                    length = (length << 8) | (data[position++] & 0xff);
+                }
+            }
+            length = Math.min(length, data.length - position);
+            responder.description = new String(data, position, length, StandardCharsets.UTF_8).trim();
+            return;
+        }
+    }
+
+    private static InetAddress address(int a, int b, int c, int d) {
+        try {
+            return InetAddress.getByAddress(new byte[] { (byte) a, (byte) b, (byte) c, (byte) d });
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** A host that answered at least one discovery query. */
+    public static final class Responder {
+        private final int address;
+        private final Set<String> protocols = new TreeSet<>();
+        private final Set<String> serviceTypes = new TreeSet<>();
+        private String name;
+        private String description;
+
+        Responder(int address) {
+            this.address = address;
+        }
+
+        public int getAddress() {
+            return address;
+        }
+
+        // NetBIOS or mDNS host name, if one was announced
+        public String getName() {
+            return name;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> info = new HashMap<>();
+            info.put("protocols", new ArrayList<>(protocols));
+            info.put("serviceTypes", new ArrayList<>(serviceTypes));
+            info.put("name", name);
+            info.put("description", description);
+            return info;
+        }
+    }
+}
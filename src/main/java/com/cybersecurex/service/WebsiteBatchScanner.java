@@ -0,0 +1,277 @@
+package com.cybersecurex.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Scans a list of websites with bounded concurrency: at most
+ * website.batch.max-concurrent scans run at once, and at most
+ * website.batch.max-concurrent-per-host against any one address. Repeated
+ * URLs are reported as duplicates without being scanned again, and names
+ * resolving to the same address share one port scan. Each result is handed
+ * to the listener as it completes; the returned future yields the summary.
+ */
+@Service
+public class WebsiteBatchScanner {
+
+    @Autowired
+    private WebsiteScannerService scannerService;
+
+    @Value("${website.batch.max-urls:10000}")
+    private int maxUrls;
+
+    @Value("${website.batch.max-concurrent:32}")
+    private int maxConcurrent;
+
+    @Value("${website.batch.max-concurrent-per-host:2}")
+    private int maxConcurrentPerHost;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "website-batch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** URLs separated by whitespace or commas; text after '#' on a line is a comment. */
+    public static List<String> parseTargets(InputStream in) throws IOException {
+        List<String> targets = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            addTargets(line, targets);
+        }
+        return targets;
+    }
+
+    public static List<String> parseTargets(String text) {
+        List<String> targets = new ArrayList<>();
+        for (String line : text.split("\\R")) {
+            addTargets(line, targets);
+        }
+        return targets;
+    }
+
+    private static void addTargets(String line, List<String> targets) {
+        int comment = line.indexOf('#');
+        String content = comment >= 0 ? line.substring(0, comment) : line;
+        for (String token : content.split("[\\s,]+")) {
+            if (!token.isEmpty()) {
+                targets.add(token);
+            }
+        }
+    }
+
+    /**
+     * Starts scanning the URLs. Concurrency arguments may lower, but not
+     * raise, the configured limits.
+     *
+     * @throws IllegalArgumentException for an empty or oversized list or bad port options
+     */
+    public CompletableFuture<Map<String, Object>> scanAsync(List<String> urls, String portProfile, String ports,
+            Integer concurrency, Integer perHostConcurrency, WebsiteScanListener listener) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("No URLs given");
+        }
+        if (urls.size() > maxUrls) {
+            throw new IllegalArgumentException("Too many URLs: " + urls.size() + " (maximum " + maxUrls + ")");
+        }
+        int[] portsToScan = scannerService.resolvePorts(portProfile, ports);
+        int global = limit(concurrency, maxConcurrent);
+        int perHost = limit(perHostConcurrency, maxConcurrentPerHost);
+
+        Batch batch = new Batch(urls.size(), portsToScan, global, perHost, listener);
+        Map<String, Integer> firstIndex = new HashMap<>();
+        List<CompletableFuture<Void>> scans = new ArrayList<>();
+        for (int index = 0; index < urls.size(); index++) {
+            String input = urls.get(index);
+            URL website;
+            try {
+                website = scannerService.normalizeUrl(input);
+            } catch (MalformedURLException e) {
+                batch.report(input, index, failure("Invalid URL: " + e.getMessage()));
+                continue;
+            }
+            Integer first = firstIndex.putIfAbsent(WebsiteScannerService.targetKey(website), index);
+            if (first != null) {
+                Map<String, Object> duplicate = new HashMap<>();
+                duplicate.put("status", "duplicate");
+                duplicate.put("url", website.toString());
+                duplicate.put("duplicateOf", first);
+                batch.report(input, index, duplicate);
+                continue;
+            }
+            scans.add(batch.scan(input, index, website));
+        }
+        return CompletableFuture.allOf(scans.toArray(new CompletableFuture<?>[0])).thenApply(done -> batch.summary());
+    }
+
+    private static int limit(Integer requested, int configured) {
+        int max = Math.max(1, configured);
+        return requested == null || requested <= 0 ? max : Math.min(requested, max);
+    }
+
+    private static Map<String, Object> failure(String message) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("status", "error");
+        result.put("message", message);
+        return result;
+    }
+
+    private final class Batch {
+        final int[] portsToScan;
+        final int perHost;
+        final WebsiteScanListener listener;
+        final Executor resolvers;
+        final Executor scanners;
+        final Map<String, CompletableFuture<List<InetAddress>>> resolutions = new ConcurrentHashMap<>();
+        final Map<InetAddress, Executor> hostScanners = new ConcurrentHashMap<>();
+        final Map<InetAddress, CompletableFuture<List<Integer>>> portScans = new ConcurrentHashMap<>();
+        final long started = System.nanoTime();
+        volatile boolean cancelled;
+
+        // Summary counters, guarded by this
+        final int total;
+        int duplicates;
+        int completed;
+        int reachable;
+        int unreachable;
+        int errors;
+        int withSsl;
+        final Map<String, Integer> issueCounts = new TreeMap<>();
+        final Map<Integer, Integer> openPortCounts = new TreeMap<>();
+
+        Batch(int total, int[] portsToScan, int global, int perHost, WebsiteScanListener listener) {
+            this.total = total;
+            this.portsToScan = portsToScan;
+            this.perHost = perHost;
+            this.listener = listener;
+            this.resolvers = new ThrottledExecutor(executor, global);
+            this.scanners = new ThrottledExecutor(executor, global);
+        }
+
+        CompletableFuture<Void> scan(String input, int index, URL website) {
+            String host = website.getHost().toLowerCase();
+            CompletableFuture<List<InetAddress>> resolution = resolutions.computeIfAbsent(host,
+                    h -> CompletableFuture.supplyAsync(() -> resolve(h), resolvers));
+
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            resolution.whenComplete((addresses, error) -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    report(input, index, failure("Could not resolve " + host + ": " + cause.getMessage()));
+                    done.complete(null);
+                    return;
+                }
+                CompletableFuture.supplyAsync(() -> cancelled ? HappyEyeballs.Result.UNREACHABLE
+                        : scannerService.raceReachability(website, addresses), scanners)
+                        .whenComplete((race, raceError) -> {
+                            if (raceError != null) {
+                                report(input, index, failure("Error scanning website: " + raceError.getMessage()));
+                                done.complete(null);
+                                return;
+                            }
+                            // Queue behind other scans of the server the race picked, then behind the batch-wide limit
+                            InetAddress server = race.reachable() ? race.endpoint.getAddress() : addresses.get(0);
+                            Executor hostScanner = hostScanners.computeIfAbsent(server,
+                                    a -> new ThrottledExecutor(scanners, perHost));
+                            hostScanner.execute(() -> {
+                                try {
+                                    if (!cancelled) {
+                                        report(input, index, scannerService.scanWebsite(website, race, portsToScan,
+                                                portScans));
+                                    }
+                                } finally {
+                                    done.complete(null);
+                                }
+                            });
+                        });
+            });
+            return done;
+        }
+
+        private List<InetAddress> resolve(String host) {
+            if (cancelled) {
+                throw new CancellationException("Batch cancelled");
+            }
+            try {
+                return Arrays.asList(InetAddress.getAllByName(host));
+            } catch (UnknownHostException e) {
+                throw new CompletionException(e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void report(String input, int index, Map<String, Object> result) {
+            result.put("input", input);
+            result.put("index", index);
+            synchronized (this) {
+                completed++;
+                Object status = result.get("status");
+                if ("duplicate".equals(status)) {
+                    duplicates++;
+                } else if (!"success".equals(status)) {
+                    errors++;
+                } else if (Boolean.TRUE.equals(result.get("reachable"))) {
+                    reachable++;
+                    if (Boolean.TRUE.equals(result.get("hasSSL"))) {
+                        withSsl++;
+                    }
+                    for (Object issue : (List<Object>) result.getOrDefault("securityIssues", List.of())) {
+                        issueCounts.merge(String.valueOf(issue), 1, Integer::sum);
+                    }
+                    for (Object port : (List<Object>) result.getOrDefault("openPorts", List.of())) {
+                        openPortCounts.merge((Integer) port, 1, Integer::sum);
+                    }
+                } else {
+                    unreachable++;
+                }
+            }
+            if (cancelled) {
+                return;
+            }
+            try {
+                listener.onResult(result);
+            } catch (RuntimeException e) {
+                cancelled = true; // The consumer went away; skip the scans still queued
+            }
+        }
+
+        synchronized Map<String, Object> summary() {
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("status", cancelled ? "cancelled" : "success");
+            summary.put("total", total);
+            summary.put("completed", completed);
+            summary.put("duplicates", duplicates);
+            summary.put("distinctAddresses", hostScanners.size());
+            summary.put("reachable", reachable);
+            summary.put("unreachable", unreachable);
+            summary.put("errors", errors);
+            summary.put("withSSL", withSsl);
+            summary.put("securityIssueCounts", new TreeMap<>(issueCounts));
+            summary.put("openPortCounts", new TreeMap<>(openPortCounts));
+            summary.put("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            summary.put("message", "Scanned " + (completed - duplicates - errors) + " of " + total + " URLs");
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,712 @@
+package com.cybersecurex.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+
+/**
+ * Crawls one site and audits the security headers and TLS of every page
+ * rather than just the root. The frontier is a bounded queue, and visited
+ * URLs are kept only as 64-bit hashes. Links are pulled from each HTML body
+ * while it streams in, and the body is dropped right after. Memory therefore
+ * stays flat however many pages are crawled. At most website.crawl.concurrency
+ * fetches are in flight. Requests to one host are spaced by the politeness
+ * delay, or by the robots.txt Crawl-delay when that is longer, and
+ * robots.txt Allow/Disallow rules are obeyed. Each page is handed to the
+ * listener as it completes; the returned future yields the summary.
+ */
+@Service
+public class WebsiteCrawler {
+
+    private static final String ROBOTS_AGENT = "cybersecurex";
+    private static final int MAX_ROBOTS_CHARS = 512 * 1024;
+    private static final int MAX_ROBOTS_REDIRECTS = 5;
+    private static final int MAX_LINKS_PER_PAGE = 5000;
+    private static final int ISSUE_EXAMPLES = 5;
+    private static final String ACCEPT = "text/html,application/xhtml+xml;q=0.9,*/*;q=0.1";
+
+    @Autowired
+    private WebsiteScannerService scannerService;
+
+    @Autowired
+    private OutboundHttpClient httpClient;
+
+    @Value("${website.crawl.max-pages:10000}")
+    private int maxPages;
+
+    @Value("${website.crawl.max-depth:5}")
+    private int maxDepth;
+
+    @Value("${website.crawl.concurrency:16}")
+    private int maxConcurrency;
+
+    @Value("${website.crawl.politeness-delay-ms:50}")
+    private long politenessDelayMillis;
+
+    @Value("${website.crawl.max-crawl-delay-ms:10000}")
+    private long maxCrawlDelayMillis;
+
+    @Value("${website.crawl.max-frontier:100000}")
+    private int maxFrontier;
+
+    @Value("${website.crawl.max-page-bytes:1048576}")
+    private long maxPageBytes;
+
+    @Value("${website.crawl.max-duration-ms:900000}")
+    private long maxDurationMillis;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "website-crawl");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Starts crawling from the URL, staying on its host (and its subdomains
+     * when includeSubdomains is set). Limit arguments may lower, but not
+     * raise, the configured limits.
+     *
+     * @throws IllegalArgumentException for a URL that is not http or https
+     */
+    public CompletableFuture<Map<String, Object>> crawlAsync(String url, Integer pages, Integer depth,
+            Integer concurrency, boolean includeSubdomains, WebsiteScanListener listener) {
+        URI start;
+        try {
+            start = normalize(scannerService.normalizeUrl(url).toURI());
+        } catch (MalformedURLException | URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid URL: " + e.getMessage());
+        }
+        if (start == null) {
+            throw new IllegalArgumentException("Invalid URL: " + url);
+        }
+        Crawl crawl = new Crawl(start, includeSubdomains, limit(pages, maxPages),
+                depth == null || depth < 0 ? maxDepth : Math.min(depth, maxDepth),
+                limit(concurrency, maxConcurrency), listener);
+        crawl.enqueue(start, 0);
+        crawl.pump();
+        return crawl.done;
+    }
+
+    private static int limit(Integer requested, int configured) {
+        int max = Math.max(1, configured);
+        return requested == null || requested <= 0 ? max : Math.min(requested, max);
+    }
+
+    // Lower-cased scheme and host, default port and fragment dropped; null for anything but http(s)
+    static URI normalize(URI uri) {
+        if (uri == null || uri.getScheme() == null || uri.getHost() == null) {
+            return null;
+        }
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        if (!scheme.equals("http") && !scheme.equals("https")) {
+            return null;
+        }
+        int port = uri.getPort();
+        boolean defaultPort = port == -1 || (scheme.equals("http") && port == 80)
+                || (scheme.equals("https") && port == 443);
+        StringBuilder sb = new StringBuilder(64).append(scheme).append("://")
+                .append(uri.getHost().toLowerCase(Locale.ROOT));
+        if (!defaultPort) {
+            sb.append(':').append(port);
+        }
+        String path = uri.getRawPath();
+        sb.append(path == null || path.isEmpty() ? "/" : path);
+        if (uri.getRawQuery() != null) {
+            sb.append('?').append(uri.getRawQuery());
+        }
+        try {
+            return new URI(sb.toString());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private static URI resolve(URI base, String link) {
+        StringBuilder cleaned = new StringBuilder(link.length());
+        for (int i = 0; i < link.length(); i++) {
+            char c = link.charAt(i);
+            if (c == ' ') {
+                cleaned.append("%20");
+            } else if (c != '\t' && c != '\n' && c != '\r') {
+                cleaned.append(c);
+            }
+        }
+        try {
+            return base.resolve(new URI(cleaned.toString()));
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null; // Not a usable link
+        }
+    }
+
+    // 64-bit FNV-1a; at 10k pages a collision, which would skip one page, is about 3 in 10^12
+    private static long hash(String url) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < url.length(); i++) {
+            h ^= url.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static String pathAndQuery(URI uri) {
+        return uri.getRawQuery() == null ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private final class Crawl {
+        final URI start;
+        final String scopeHost;
+        final boolean includeSubdomains;
+        final int pageLimit;
+        final int depthLimit;
+        final int concurrency;
+        final WebsiteScanListener listener;
+        final long started = System.nanoTime();
+        final long deadline;
+        final CompletableFuture<Map<String, Object>> done = new CompletableFuture<>();
+        final Map<String, Host> hosts = new ConcurrentHashMap<>();
+        volatile boolean cancelled;
+
+        // Guarded by this
+        final ArrayDeque<Target> frontier = new ArrayDeque<>();
+        final LongHashSet visited = new LongHashSet(1024);
+        int inFlight;
+        int pagesStarted;
+        boolean finished;
+        String stopReason;
+
+        // Summary counters, guarded by this
+        int pagesCrawled;
+        int errors;
+        int robotsBlocked;
+        int duplicateLinks;
+        int outOfScopeLinks;
+        int depthLimitedLinks;
+        int frontierDropped;
+        final Map<Integer, Integer> statusCodes = new TreeMap<>();
+        final Map<String, Integer> issueCounts = new TreeMap<>();
+        final Map<String, List<String>> issueExamples = new TreeMap<>();
+        final Map<String, Map<String, Object>> tls = new TreeMap<>();
+
+        Crawl(URI start, boolean includeSubdomains, int pageLimit, int depthLimit, int concurrency,
+                WebsiteScanListener listener) {
+            this.start = start;
+            String host = start.getHost();
+            this.scopeHost = includeSubdomains && host.startsWith("www.") ? host.substring(4) : host;
+            this.includeSubdomains = includeSubdomains;
+            this.pageLimit = pageLimit;
+            this.depthLimit = depthLimit;
+            this.concurrency = concurrency;
+            this.listener = listener;
+            this.deadline = started + TimeUnit.MILLISECONDS.toNanos(maxDurationMillis);
+        }
+
+        synchronized void enqueue(URI link, int depth) {
+            URI uri = normalize(link);
+            if (uri == null) {
+                return;
+            }
+            String host = uri.getHost();
+            if (!host.equals(scopeHost) && !(includeSubdomains && host.endsWith("." + scopeHost))) {
+                outOfScopeLinks++;
+                return;
+            }
+            if (depth > depthLimit) {
+                depthLimitedLinks++;
+                return;
+            }
+            long key = hash(uri.toString());
+            if (visited.contains(key)) {
+                duplicateLinks++;
+                return;
+            }
+            if (frontier.size() >= maxFrontier) {
+                frontierDropped++; // Not marked visited, so a later link may still get it in
+                return;
+            }
+            visited.add(key);
+            frontier.add(new Target(uri, depth));
+        }
+
+        // Starts fetches up to the concurrency limit; completes the crawl once nothing is left in flight
+        void pump() {
+            List<Target> starting = new ArrayList<>();
+            boolean complete = false;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                if (stopReason == null && cancelled) {
+                    stopReason = "cancelled";
+                } else if (stopReason == null && System.nanoTime() - deadline >= 0) {
+                    stopReason = "time-limit";
+                }
+                while (stopReason == null && inFlight < concurrency && !frontier.isEmpty()) {
+                    if (pagesStarted >= pageLimit) {
+                        stopReason = "page-limit";
+                        break;
+                    }
+                    starting.add(frontier.poll());
+                    inFlight++;
+                    pagesStarted++;
+                }
+                if (inFlight == 0 && starting.isEmpty()) {
+                    finished = true;
+                    complete = true;
+                }
+            }
+            if (complete) {
+                done.complete(summary());
+                return;
+            }
+            for (Target target : starting) {
+                start(target);
+            }
+        }
+
+        // Runs on the scheduler even when robots.txt is already known, so a page full of
+        // robots-blocked links is worked through iteratively instead of recursing via pump()
+        private void start(Target target) {
+            Host host = hosts.computeIfAbsent(target.uri.getScheme() + "://" + target.uri.getRawAuthority(),
+                    k -> new Host());
+            try {
+                host.robots(target.uri).whenCompleteAsync((result, error) -> {
+                    boolean scheduled = false;
+                    try {
+                        if (host.tlsFailure != null && "https".equals(target.uri.getScheme())) {
+                            recordTlsFailure(target.uri.getRawAuthority(), host.tlsFailure);
+                        }
+                        Robots robots = result != null ? result : Robots.ALLOW_ALL;
+                        if (!robots.allows(pathAndQuery(target.uri))) {
+                            synchronized (this) {
+                                robotsBlocked++;
+                                pagesStarted--; // Never fetched, so it does not count against the page limit
+                            }
+                            return;
+                        }
+                        long delay = Math.max(TimeUnit.MILLISECONDS.toNanos(politenessDelayMillis),
+                                robots.crawlDelayNanos);
+                        scheduler.schedule(() -> fetch(target), host.reserve(delay), TimeUnit.NANOSECONDS);
+                        scheduled = true;
+                    } catch (RejectedExecutionException e) {
+                        cancelled = true;
+                    } finally {
+                        if (!scheduled) {
+                            finishPage();
+                        }
+                    }
+                }, scheduler);
+            } catch (RuntimeException e) {
+                if (e instanceof RejectedExecutionException) {
+                    cancelled = true;
+                }
+                finishPage();
+            }
+        }
+
+        private void fetch(Target target) {
+            if (cancelled) {
+                finishPage();
+                return;
+            }
+            CompletableFuture<HttpResponse<HtmlLinkExtractor.Page>> response;
+            try {
+                HttpRequest request = httpClient.request(target.uri).header("Accept", ACCEPT).GET().build();
+                response = httpClient.sendAsync(request, info ->
+                        isHtml(info.headers().firstValue("Content-Type").orElse(""))
+                                ? new HtmlLinkExtractor(maxPageBytes, MAX_LINKS_PER_PAGE)
+                                : new HtmlLinkExtractor(0, 0)); // Anything else is cut off at its first byte
+            } catch (RuntimeException e) {
+                response = CompletableFuture.failedFuture(e);
+            }
+            response.whenComplete((page, error) -> {
+                try {
+                    report(target, page, error);
+                } finally {
+                    finishPage();
+                }
+            });
+        }
+
+        private void finishPage() {
+            synchronized (this) {
+                inFlight--;
+            }
+            pump();
+        }
+
+        private void report(Target target, HttpResponse<HtmlLinkExtractor.Page> response, Throwable error) {
+            Map<String, Object> page = new HashMap<>();
+            page.put("url", target.uri.toString());
+            page.put("depth", target.depth);
+            String authority = target.uri.getRawAuthority();
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                page.put("status", "error");
+                page.put("message", "Fetch failed: " + cause.getMessage());
+                if (cause instanceof SSLException && "https".equals(target.uri.getScheme())) {
+                    recordTlsFailure(authority, cause);
+                }
+                publish(page, List.of());
+                return;
+            }
+
+            int code = response.statusCode();
+            String contentType = response.headers().firstValue("Content-Type").orElse("");
+            page.put("status", "success");
+            page.put("statusCode", code);
+            page.put("contentType", contentType);
+
+            Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            response.headers().map().forEach((name, values) -> headers.put(name, String.join(", ", values)));
+            List<String> issues = WebsiteScannerService.analyzeSecurityHeaders(headers);
+            if ("http".equals(target.uri.getScheme())) {
+                issues.add("Page served over plain HTTP");
+            }
+            page.put("securityIssues", issues);
+            response.sslSession().ifPresent(session -> recordTls(authority, session));
+
+            if (code >= 300 && code < 400) {
+                Optional<String> location = response.headers().firstValue("Location");
+                if (location.isPresent()) {
+                    URI redirect = normalize(resolve(target.uri, location.get()));
+                    if (redirect != null) {
+                        page.put("redirectTo", redirect.toString());
+                        enqueue(redirect, target.depth + 1);
+                    }
+                }
+            }
+            HtmlLinkExtractor.Page body = response.body();
+            if (isHtml(contentType)) {
+                URI base = body.base != null ? resolve(target.uri, body.base) : null;
+                for (String link : body.links) {
+                    URI uri = resolve(base != null ? base : target.uri, link);
+                    if (uri != null) {
+                        enqueue(uri, target.depth + 1);
+                    }
+                }
+                page.put("links", body.links.size());
+                page.put("bytesRead", body.bytes);
+                if (body.truncated) {
+                    page.put("truncated", true);
+                }
+            }
+            publish(page, issues);
+        }
+
+        private void publish(Map<String, Object> page, List<String> issues) {
+            synchronized (this) {
+                if ("success".equals(page.get("status"))) {
+                    pagesCrawled++;
+                    statusCodes.merge((Integer) page.get("statusCode"), 1, Integer::sum);
+                } else {
+                    errors++;
+                }
+                for (String issue : issues) {
+                    issueCounts.merge(issue, 1, Integer::sum);
+                    List<String> examples = issueExamples.computeIfAbsent(issue, k -> new ArrayList<>());
+                    if (examples.size() < ISSUE_EXAMPLES) {
+                        examples.add((String) page.get("url"));
+                    }
+                }
+            }
+            if (cancelled) {
+                return;
+            }
+            try {
+                listener.onResult(page);
+            } catch (RuntimeException e) {
+                cancelled = true; // The consumer went away; stop crawling
+            }
+        }
+
+        private synchronized void recordTlsFailure(String authority, Throwable cause) {
+            Map<String, Object> failure = new HashMap<>();
+            failure.put("error", cause.getMessage());
+            failure.put("securityIssues", List.of("TLS handshake failed: " + cause.getMessage()));
+            tls.putIfAbsent(authority, failure);
+        }
+
+        // TLS details are recorded from the first response on each host
+        private void recordTls(String authority, SSLSession session) {
+            synchronized (this) {
+                if (tls.containsKey(authority)) {
+                    return;
+                }
+            }
+            Map<String, Object> details = new HashMap<>();
+            List<String> issues = new ArrayList<>();
+            String protocol = session.getProtocol();
+            details.put("protocol", protocol);
+            details.put("cipherSuite", session.getCipherSuite());
+            if ("TLSv1".equals(protocol) || "TLSv1.1".equals(protocol) || protocol.startsWith("SSL")) {
+                issues.add("Outdated TLS protocol negotiated: " + protocol);
+            }
+            try {
+                Certificate[] chain = session.getPeerCertificates();
+                if (chain.length > 0 && chain[0] instanceof X509Certificate) {
+                    X509Certificate leaf = (X509Certificate) chain[0];
+                    details.put("subject", leaf.getSubjectX500Principal().getName());
+                    details.put("issuer", leaf.getIssuerX500Principal().getName());
+                    details.put("notAfter", leaf.getNotAfter().toString());
+                    long remaining = leaf.getNotAfter().getTime() - System.currentTimeMillis();
+                    if (remaining < TimeUnit.DAYS.toMillis(30)) {
+                        issues.add("Certificate expires within 30 days");
+                    }
+                }
+            } catch (SSLPeerUnverifiedException e) {
+                issues.add("Peer certificate not available");
+            }
+            details.put("securityIssues", issues);
+            synchronized (this) {
+                tls.putIfAbsent(authority, details);
+            }
+        }
+
+        synchronized Map<String, Object> summary() {
+            boolean wasCancelled = "cancelled".equals(stopReason);
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("status", wasCancelled ? "cancelled" : "success");
+            summary.put("startUrl", start.toString());
+            summary.put("stopReason", stopReason != null ? stopReason : "completed");
+            summary.put("pagesCrawled", pagesCrawled);
+            summary.put("errors", errors);
+            summary.put("statusCodes", new TreeMap<>(statusCodes));
+            summary.put("securityIssueCounts", new TreeMap<>(issueCounts));
+            summary.put("securityIssueExamples", new TreeMap<>(issueExamples));
+            summary.put("tls", new TreeMap<>(tls));
+            long tlsFailures = tls.values().stream().filter(details -> details.containsKey("error")).count();
+            summary.put("tlsFailures", tlsFailures);
+            summary.put("robotsBlocked", robotsBlocked);
+            summary.put("duplicateLinks", duplicateLinks);
+            summary.put("outOfScopeLinks", outOfScopeLinks);
+            summary.put("depthLimitedLinks", depthLimitedLinks);
+            summary.put("frontierDropped", frontierDropped);
+            summary.put("urlsSeen", visited.size());
+            summary.put("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            summary.put("message", "Crawled " + pagesCrawled + " pages on " + hosts.size() + " host(s)"
+                    + (tlsFailures > 0 ? ", TLS handshake failed on " + tlsFailures : ""));
+            return summary;
+        }
+    }
+
+    private static boolean isHtml(String contentType) {
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/html") || type.startsWith("application/xhtml+xml");
+    }
+
+    private static final class Target {
+        final URI uri;
+        final int depth;
+
+        Target(URI uri, int depth) {
+            this.uri = uri;
+            this.depth = depth;
+        }
+    }
+
+    // Per scheme and authority: robots.txt, fetched once, and the next free politeness slot
+    private final class Host {
+        private CompletableFuture<Robots> robots;
+        private long nextSlot = System.nanoTime();
+        volatile Throwable tlsFailure; // Set before the robots future completes
+
+        synchronized CompletableFuture<Robots> robots(URI page) {
+            if (robots == null) {
+                reserve(0);
+                robots = fetchRobots(page.resolve("/robots.txt"), MAX_ROBOTS_REDIRECTS);
+            }
+            return robots;
+        }
+
+        // The shared client does not follow redirects, so robots.txt redirects (http to https, bare
+        // host to www.) are followed here, up to the five hops RFC 9309 asks for. A longer chain or
+        // a redirect without a usable Location leaves the rules unknown, and nothing is fetched
+        private CompletableFuture<Robots> fetchRobots(URI uri, int redirectsLeft) {
+            HttpRequest request = httpClient.request(uri).GET().build();
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .handle((response, error) -> {
+                        if (error != null) {
+                            Throwable cause = unwrap(error);
+                            if (cause instanceof SSLException) {
+                                // Reachable, but the handshake failed: let the pages be fetched so
+                                // the failure is reported rather than hidden behind "disallowed"
+                                tlsFailure = cause;
+                                return CompletableFuture.completedFuture(Robots.ALLOW_ALL);
+                            }
+                            // Unreachable: assume complete disallow (RFC 9309)
+                            return CompletableFuture.completedFuture(Robots.DISALLOW_ALL);
+                        }
+                        int code = response.statusCode();
+                        if (code >= 200 && code < 300) {
+                            String text = response.body();
+                            return CompletableFuture.completedFuture(Robots.parse(text.length() > MAX_ROBOTS_CHARS
+                                    ? text.substring(0, MAX_ROBOTS_CHARS) : text, maxCrawlDelayMillis));
+                        }
+                        if (code >= 300 && code < 400) {
+                            URI redirect = response.headers().firstValue("Location")
+                                    .map(location -> normalize(resolve(uri, location)))
+                                    .orElse(null);
+                            return redirect != null && redirectsLeft > 0
+                                    ? fetchRobots(redirect, redirectsLeft - 1)
+                                    : CompletableFuture.completedFuture(Robots.DISALLOW_ALL);
+                        }
+                        return CompletableFuture.completedFuture(
+                                code >= 500 ? Robots.DISALLOW_ALL : Robots.ALLOW_ALL);
+                    })
+                    .thenCompose(next -> next);
+        }
+
+        // Reserves the next request slot on this host; returns the wait until it
+        synchronized long reserve(long spacingNanos) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextSlot);
+            nextSlot = slot + spacingNanos;
+            return slot - now;
+        }
+    }
+
+    /**
+     * The robots.txt rules for this crawler: the groups naming it, or else
+     * the "*" groups. The longest matching Allow or Disallow path wins, Allow
+     * on a tie, with '*' and '$' wildcards as in RFC 9309.
+     */
+    static final class Robots {
+        static final Robots ALLOW_ALL = new Robots(List.of(), 0);
+        static final Robots DISALLOW_ALL = new Robots(List.of(new Rule(false, "/")), 0);
+
+        final List<Rule> rules;
+        final long crawlDelayNanos;
+
+        Robots(List<Rule> rules, long crawlDelayNanos) {
+            this.rules = rules;
+            this.crawlDelayNanos = crawlDelayNanos;
+        }
+
+        boolean allows(String path) {
+            if (path.equals("/robots.txt")) {
+                return true;
+            }
+            Rule best = null;
+            for (Rule rule : rules) {
+                if (rule.matches(path) && (best == null || rule.length > best.length
+                        || (rule.length == best.length && rule.allow))) {
+                    best = rule;
+                }
+            }
+            return best == null || best.allow;
+        }
+
+        static Robots parse(String text, long maxCrawlDelayMillis) {
+            List<Group> groups = new ArrayList<>();
+            Group group = null;
+            boolean inRules = false;
+            for (String line : text.split("\\R")) {
+                int comment = line.indexOf('#');
+                String content = (comment >= 0 ? line.substring(0, comment) : line).trim();
+                int colon = content.indexOf(':');
+                if (colon < 0) {
+                    continue;
+                }
+                String key = content.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+                String value = content.substring(colon + 1).trim();
+                if (key.equals("user-agent")) {
+                    if (group == null || inRules) {
+                        group = new Group();
+                        groups.add(group);
+                        inRules = false;
+                    }
+                    group.agents.add(value.toLowerCase(Locale.ROOT));
+                } else if (group != null && (key.equals("allow") || key.equals("disallow"))) {
+                    inRules = true;
+                    if (!value.isEmpty()) {
+                        group.rules.add(new Rule(key.equals("allow"), value));
+                    }
+                } else if (group != null && key.equals("crawl-delay")) {
+                    inRules = true;
+                    try {
+                        group.crawlDelayMillis = (long) (Double.parseDouble(value) * 1000);
+                    } catch (NumberFormatException e) {
+                        // Ignored, like any other malformed line
+                    }
+                }
+            }
+
+            List<Rule> rules = new ArrayList<>();
+            long crawlDelayMillis = 0;
+            for (String agent : new String[] { ROBOTS_AGENT, "*" }) {
+                for (Group candidate : groups) {
+                    if (candidate.agents.contains(agent)) {
+                        rules.addAll(candidate.rules);
+                        crawlDelayMillis = Math.max(crawlDelayMillis, candidate.crawlDelayMillis);
+                    }
+                }
+                if (!rules.isEmpty() || crawlDelayMillis > 0) {
+                    break;
+                }
+            }
+            long delay = Math.min(Math.max(0, crawlDelayMillis), Math.max(0, maxCrawlDelayMillis));
+            return new Robots(rules, TimeUnit.MILLISECONDS.toNanos(delay));
+        }
+
+        private static final class Group {
+            final Set<String> agents = new HashSet<>();
+            final List<Rule> rules = new ArrayList<>();
+            long crawlDelayMillis;
+        }
+
+        static final class Rule {
+            final boolean allow;
+            final int length;
+            final Pattern pattern;
+
+            Rule(boolean allow, String path) {
+                this.allow = allow;
+                this.length = path.length();
+                boolean anchored = path.endsWith("$");
+                String body = anchored ? path.substring(0, path.length() - 1) : path;
+                StringBuilder regex = new StringBuilder();
+                String[] parts = body.split("\\*", -1);
+                for (int i = 0; i < parts.length; i++) {
+                    if (i > 0) {
+                        regex.append(".*");
+                    }
+                    if (!parts[i].isEmpty()) {
+                        regex.append(Pattern.quote(parts[i]));
+                    }
+                }
+                this.pattern = Pattern.compile(anchored ? regex + "$" : regex.toString(), Pattern.DOTALL);
+            }
+
+            boolean matches(String path) {
+                return pattern.matcher(path).lookingAt();
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.cybersecurex.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of website scan results keyed by normalized URL and
+ * ports. A result is served as-is for website.cache.ttl-ms. For
+ * website.cache.stale-ms after that it is still served, marked stale, while
+ * one background scan refreshes it. Concurrent misses for the same key share
+ * one scan. Only successful scans of a reachable site are cached: a site
+ * that did not answer may be down for a moment only, so it is scanned again
+ * on the next request. A failed or unreachable refresh leaves the stale
+ * result in place.
+ */
+@Component
+public class WebsiteResultCache {
+
+    private static final int REFRESH_THREADS = 4;
+
+    @Value("${website.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${website.cache.ttl-ms:300000}")
+    private long ttlMillis;
+
+    @Value("${website.cache.stale-ms:3600000}")
+    private long staleMillis;
+
+    @Value("${website.cache.max-entries:1000}")
+    private int maxEntries;
+
+    private final ExecutorService refresher = Executors.newFixedThreadPool(REFRESH_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "website-cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, CacheEntry> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+            if (size() > maxEntries) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final ConcurrentHashMap<String, CompletableFuture<Map<String, Object>>> inFlight =
+            new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bypasses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong failedScans = new AtomicLong();
+    private final AtomicLong unreachableScans = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * The cached result for the key, or the result of running the scan. The
+     * returned map is a copy carrying a "cache" entry with the outcome (hit,
+     * stale, miss or bypass) and the result's age.
+     */
+    public Map<String, Object> get(String key, boolean forceFresh, Supplier<Map<String, Object>> scan) {
+        if (!enabled) {
+            return scan.get();
+        }
+        if (forceFresh) {
+            bypasses.incrementAndGet();
+            return annotate(load(key, scan), "bypass", 0);
+        }
+
+        CacheEntry entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+        }
+        long now = System.nanoTime();
+        if (entry != null) {
+            long age = now - entry.createdAt;
+            if (age < TimeUnit.MILLISECONDS.toNanos(ttlMillis)) {
+                hits.incrementAndGet();
+                return annotate(entry.result, "hit", age);
+            }
+            if (age < TimeUnit.MILLISECONDS.toNanos(ttlMillis + staleMillis)) {
+                staleHits.incrementAndGet();
+                refreshInBackground(key, scan);
+                return annotate(entry.result, "stale", age);
+            }
+        }
+        misses.incrementAndGet();
+        return annotate(load(key, scan), "miss", 0);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        int size;
+        synchronized (cache) {
+            size = cache.size();
+        }
+        long hitCount = hits.get();
+        long staleCount = staleHits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + staleCount + missCount;
+        stats.put("enabled", enabled);
+        stats.put("size", size);
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMs", ttlMillis);
+        stats.put("staleMs", staleMillis);
+        stats.put("hits", hitCount);
+        stats.put("staleHits", staleCount);
+        stats.put("misses", missCount);
+        stats.put("bypasses", bypasses.get());
+        stats.put("refreshes", refreshes.get());
+        stats.put("failedScans", failedScans.get());
+        stats.put("unreachableScans", unreachableScans.get());
+        stats.put("evictions", evictions.get());
+        stats.put("scansInFlight", inFlight.size());
+        stats.put("hitRatio", lookups == 0 ? 0.0 : Math.round((hitCount + staleCount) * 1000.0 / lookups) / 1000.0);
+        return stats;
+    }
+
+    // Runs the scan on the calling thread unless one for the key is already running
+    private Map<String, Object> load(String key, Supplier<Map<String, Object>> scan) {
+        CompletableFuture<Map<String, Object>> created = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing.join();
+        }
+        run(key, scan, created);
+        return created.join();
+    }
+
+    private void refreshInBackground(String key, Supplier<Map<String, Object>> scan) {
+        CompletableFuture<Map<String, Object>> created = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, created) != null) {
+            return; // Already being refreshed
+        }
+        refreshes.incrementAndGet();
+        try {
+            refresher.execute(() -> run(key, scan, created));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, created);
+            created.cancel(false);
+        }
+    }
+
+    private void run(String key, Supplier<Map<String, Object>> scan, CompletableFuture<Map<String, Object>> future) {
+        try {
+            Map<String, Object> result = scan.get();
+            if (!"success".equals(result.get("status"))) {
+                failedScans.incrementAndGet();
+            } else if (Boolean.FALSE.equals(result.get("reachable"))) {
+                unreachableScans.incrementAndGet();
+            } else {
+                synchronized (cache) {
+                    cache.put(key, new CacheEntry(result, System.nanoTime()));
+                }
+            }
+            future.complete(result);
+        } catch (RuntimeException e) {
+            failedScans.incrementAndGet();
+            future.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private static Map<String, Object> annotate(Map<String, Object> result, String status, long ageNanos) {
+        Map<String, Object> copy = new HashMap<>(result);
+        Map<String, Object> cacheInfo = new HashMap<>();
+        cacheInfo.put("status", status);
+        cacheInfo.put("ageMs", TimeUnit.NANOSECONDS.toMillis(ageNanos));
+        copy.put("cache", cacheInfo);
+        return copy;
+    }
+
+    private static final class CacheEntry {
+        final Map<String, Object> result;
+        final long createdAt;
+
+        CacheEntry(Map<String, Object> result, long createdAt) {
+            this.result = result;
+            this.createdAt = createdAt;
+        }
+    }
+}
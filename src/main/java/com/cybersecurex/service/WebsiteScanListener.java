@@ -0,0 +1,12 @@
+package com.cybersecurex.service;
+
+import java.util.Map;
+
+/**
+ * Receives the result of each website in a batch scan as soon as it completes.
+ */
+@FunctionalInterface
+public interface WebsiteScanListener {
+
+    void onResult(Map<String, Object> result);
+}
@@ -1,23 +1,160 @@
 package com.cybersecurex.service;
 
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.io.IOException;
 import java.net.*;
+import java.security.cert.X509Certificate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class WebsiteScannerService {
 
+    private static final int[] COMMON_PORTS = { 21, 22, 23, 25, 53, 80, 110, 443, 993, 995, 8080, 8443 };
+
+    // Upper bounds; actual port timeouts shrink to the RTT measured during the scan
+    private static final int REACHABLE_TIMEOUT_MS = 5000;
+    private static final int PORT_TIMEOUT_MS = 3000;
+    private static final int MIN_PORT_TIMEOUT_MS = 100;
+    // RFC 8305's recommended delay between connection attempts
+    private static final int CONNECTION_ATTEMPT_DELAY_MS = 250;
+    private static final int HTTP_TIMEOUT_MS = 10000;
+    private static final int CERT_EXPIRY_WARNING_DAYS = 30;
+
+    // Scan stages block on sockets; each scan runs at most three of them at once
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "website-scan");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    private PortScanEngine portScanEngine;
+
+    @Autowired
+    private PortProfiles portProfiles;
+
+    @Autowired
+    private WebsiteResultCache resultCache;
+
     public Map<String, Object> scanWebsite(String url) {
-        Map<String, Object> result = new HashMap<>();
+        return scanWebsite(url, null, null, false);
+    }
 
+    /**
+     * Scans the website, probing the ports of the named profile (common,
+     * top-100, top-1000, full or custom with {@code ports}). A recent result
+     * for the same URL and ports is served from the cache unless
+     * {@code forceFresh} is set.
+     */
+    public Map<String, Object> scanWebsite(String url, String portProfile, String ports, boolean forceFresh) {
         try {
-            // Clean and validate URL
-            if (!url.startsWith("http://") && !url.startsWith("https://")) {
-                url = "https://" + url;
+            URL website = normalizeUrl(url);
+            int[] portsToScan = portProfiles.resolve(portProfile, ports, COMMON_PORTS);
+            String key = targetKey(website) + " " + portsKey(portsToScan);
+
+            return resultCache.get(key, forceFresh, () -> {
+                try {
+                    // Resolve once; every stage connects to the address that answers first
+                    List<InetAddress> addresses = Arrays.asList(InetAddress.getAllByName(website.getHost()));
+                    return scanWebsite(website, addresses, portsToScan, null);
+                } catch (UnknownHostException e) {
+                    return scanFailed(url, e);
+                }
+            });
+        } catch (Exception e) {
+            return scanFailed(url, e);
+        }
+    }
+
+    public Map<String, Object> cacheStats() {
+        return resultCache.stats();
+    }
+
+    private Map<String, Object> scanFailed(String url, Exception e) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("url", url);
+        result.put("status", "error");
+        result.put("message", "Error scanning website: " + e.getMessage());
+        return result;
+    }
+
+    // Same scheme, host (case-insensitive), port and path means the same scan
+    static String targetKey(URL website) {
+        int port = website.getPort() != -1 ? website.getPort() : website.getDefaultPort();
+        String path = website.getFile().isEmpty() ? "/" : website.getFile();
+        return website.getProtocol().toLowerCase() + "://" + website.getHost().toLowerCase() + ":" + port + path;
+    }
+
+    // Sorted ports as compact ranges, e.g. "1-1024,8080"
+    private static String portsKey(int[] ports) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < ports.length; i++) {
+            int first = ports[i];
+            while (i + 1 < ports.length && ports[i + 1] == ports[i] + 1) {
+                i++;
+            }
+            if (key.length() > 0) {
+                key.append(',');
             }
+            key.append(first);
+            if (ports[i] != first) {
+                key.append('-').append(ports[i]);
+            }
+        }
+        return key.toString();
+    }
+
+    /** Adds https:// when no scheme is given and parses the result. */
+    URL normalizeUrl(String url) throws MalformedURLException {
+        String trimmed = url.trim();
+        String lower = trimmed.toLowerCase();
+        if (!lower.startsWith("http://") && !lower.startsWith("https://")) {
+            trimmed = "https://" + trimmed;
+        }
+        return new URL(trimmed);
+    }
+
+    int[] resolvePorts(String portProfile, String ports) {
+        return portProfiles.resolve(portProfile, ports, COMMON_PORTS);
+    }
+
+    /**
+     * Scans a website whose host is already resolved to the given addresses.
+     * With {@code portScans}, websites on the same address share one port
+     * scan, so several names for one server are port scanned once.
+     */
+    Map<String, Object> scanWebsite(URL website, List<InetAddress> addresses, int[] portsToScan,
+            Map<InetAddress, CompletableFuture<List<Integer>>> portScans) {
+        return scanWebsite(website, raceReachability(website, addresses), portsToScan, portScans);
+    }
+
+    /**
+     * Races TCP connects to the website's web ports on every address. The
+     * first to connect is the one scanned, and an address that only refused
+     * is used when none does.
+     */
+    HappyEyeballs.Result raceReachability(URL website, List<InetAddress> addresses) {
+        int port = website.getPort() != -1 ? website.getPort() : website.getDefaultPort();
+        return HappyEyeballs.race(addresses, reachabilityPorts(port), CONNECTION_ATTEMPT_DELAY_MS,
+                REACHABLE_TIMEOUT_MS);
+    }
+
+    /**
+     * Scans a website against the address its reachability race picked, so
+     * a caller that throttles per server can key on that same address.
+     */
+    Map<String, Object> scanWebsite(URL website, HappyEyeballs.Result race, int[] portsToScan,
+            Map<InetAddress, CompletableFuture<List<Integer>>> portScans) {
+        Map<String, Object> result = new HashMap<>();
 
-            URL website = new URL(url);
+        try {
+            String url = website.toString();
             String host = website.getHost();
 
             result.put("url", url);
@@ -25,31 +162,67 @@ public class WebsiteScannerService {
             result.put("timestamp", new Date().toString());
             result.put("status", "success");
 
-            // Check if website is reachable
-            boolean reachable = isReachable(host);
-            result.put("reachable", reachable);
+            boolean https = "https".equals(website.getProtocol());
+            int port = website.getPort() != -1 ? website.getPort() : website.getDefaultPort();
+
+            result.put("reachable", race.reachable());
+            if (!race.reachable()) {
+                result.put("message", "Website is not reachable");
+                return result;
+            }
+            InetAddress address = race.endpoint.getAddress();
+            result.put("address", address.getHostAddress());
 
-            if (reachable) {
-                // Port scanning
-                List<Integer> openPorts = scanCommonPorts(host);
-                result.put("openPorts", openPorts);
+            // The port scan and the HTTP/TLS inspection run concurrently against that address
+            AdaptiveProbeController probes = new AdaptiveProbeController(PORT_TIMEOUT_MS, MIN_PORT_TIMEOUT_MS,
+                    PORT_TIMEOUT_MS, 1, 1);
+            probes.onResponse(address, race.rttNanos);
+            CompletableFuture<List<Integer>> openPortsStage = portScans == null
+                    ? CompletableFuture.supplyAsync(() -> scanPorts(address.getHostAddress(), portsToScan, probes),
+                            executor)
+                    : portScans.computeIfAbsent(address, a -> CompletableFuture.supplyAsync(
+                            () -> scanPorts(a.getHostAddress(), portsToScan, probes), executor));
+            CompletableFuture<HttpInspector.Inspection> inspectionStage = CompletableFuture.supplyAsync(
+                    () -> HttpInspector.inspect(address, host, port, https, website.getFile(), HTTP_TIMEOUT_MS),
+                    executor);
+            // A plain-HTTP URL says nothing about HTTPS support, so check port 443 alongside
+            CompletableFuture<HttpInspector.Inspection> tlsStage = https ? inspectionStage
+                    : CompletableFuture.supplyAsync(
+                            () -> HttpInspector.handshakeOnly(address, host, 443, HTTP_TIMEOUT_MS), executor);
 
-                // SSL/HTTPS check
-                boolean hasSSL = url.startsWith("https://");
-                result.put("hasSSL", hasSSL);
+            List<Integer> openPorts = openPortsStage.join();
+            HttpInspector.Inspection inspection = inspectionStage.join();
+            if (inspection.connected()) {
+                probes.onResponse(address, inspection.connectNanos);
+            }
 
-                // Get basic HTTP headers
-                Map<String, String> headers = getBasicHeaders(url);
-                result.put("headers", headers);
+            result.put("openPorts", openPorts);
+            result.put("probeTiming", probes.stats());
 
-                // Security analysis
-                List<String> securityIssues = analyzeSecurityHeaders(headers);
-                result.put("securityIssues", securityIssues);
+            // SSL/HTTPS check: a completed handshake, not just the URL scheme
+            HttpInspector.Inspection tls = tlsStage.join();
+            result.put("hasSSL", tls.handshakeCompleted());
+            result.put("tls", describeTls(tls, https ? port : 443));
 
-                result.put("message", "Scan completed successfully!");
+            // Full response header set from the inspection connection
+            Map<String, String> headers = new LinkedHashMap<>();
+            if (inspection.responseCode >= 0) {
+                headers.put("Response-Code", String.valueOf(inspection.responseCode));
+                headers.putAll(inspection.headers);
             } else {
-                result.put("message", "Website is not reachable");
+                headers.put("Error", "Could not retrieve headers: " + inspection.error);
+            }
+            result.put("headers", headers);
+
+            // Security analysis
+            List<String> securityIssues = analyzeSecurityHeaders(inspection.headers);
+            securityIssues.addAll(analyzeTls(tls));
+            if (securityIssues.isEmpty()) {
+                securityIssues.add("Good! Basic security headers are present.");
             }
+            result.put("securityIssues", securityIssues);
+
+            result.put("message", "Scan completed successfully!");
 
         } catch (Exception e) {
             result.put("status", "error");
@@ -59,59 +232,74 @@ public class WebsiteScannerService {
         return result;
     }
 
-    private boolean isReachable(String host) {
-        try {
-            InetAddress address = InetAddress.getByName(host);
-            return address.isReachable(5000); // 5 second timeout
-        } catch (IOException e) {
-            return false;
-        }
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
     }
 
-    private List<Integer> scanCommonPorts(String host) {
-        List<Integer> openPorts = new ArrayList<>();
-        int[] commonPorts = { 21, 22, 23, 25, 53, 80, 110, 443, 993, 995, 8080, 8443 };
+    // The URL's own port first, then the other web ports
+    private static int[] reachabilityPorts(int port) {
+        return port == 443 ? new int[] { 443, 80 } : port == 80 ? new int[] { 80, 443 } : new int[] { port, 443, 80 };
+    }
 
-        for (int port : commonPorts) {
-            try (Socket socket = new Socket()) {
-                socket.connect(new InetSocketAddress(host, port), 3000);
-                openPorts.add(port);
-            } catch (IOException ignored) {
-                // Port is closed or filtered
-            }
+    private List<Integer> scanPorts(String host, int[] ports, AdaptiveProbeController probes) {
+        // Probed concurrently by the shared engine; timeouts follow the measured RTT
+        return portScanEngine.scanPorts(host, ports, probes);
+    }
+
+    private Map<String, Object> describeTls(HttpInspector.Inspection tls, int port) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("port", port);
+        if (!tls.handshakeCompleted()) {
+            details.put("error", tls.error != null ? tls.error : "No TLS handshake");
+            return details;
         }
-        return openPorts;
+        details.put("protocol", tls.tlsProtocol);
+        details.put("cipherSuite", tls.cipherSuite);
+        details.put("trusted", tls.trustError == null);
+        if (tls.trustError != null) {
+            details.put("trustError", tls.trustError);
+        }
+        List<Map<String, Object>> chain = new ArrayList<>();
+        for (X509Certificate certificate : tls.certificates) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("subject", certificate.getSubjectX500Principal().getName());
+            entry.put("issuer", certificate.getIssuerX500Principal().getName());
+            entry.put("serialNumber", certificate.getSerialNumber().toString(16));
+            entry.put("notBefore", certificate.getNotBefore().toString());
+            entry.put("notAfter", certificate.getNotAfter().toString());
+            entry.put("signatureAlgorithm", certificate.getSigAlgName());
+            chain.add(entry);
+        }
+        details.put("certificateChain", chain);
+        return details;
     }
 
-    private Map<String, String> getBasicHeaders(String url) {
-        Map<String, String> headers = new HashMap<>();
-        try {
-            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-            connection.setRequestMethod("HEAD");
-            connection.setConnectTimeout(10000);
-            connection.setReadTimeout(10000);
-            connection.setRequestProperty("User-Agent", "CyberSecureX-Scanner/1.0");
-
-            // Get response code
-            int responseCode = connection.getResponseCode();
-            headers.put("Response-Code", String.valueOf(responseCode));
-
-            // Get important headers
-            String server = connection.getHeaderField("Server");
-            if (server != null)
-                headers.put("Server", server);
-
-            String contentType = connection.getHeaderField("Content-Type");
-            if (contentType != null)
-                headers.put("Content-Type", contentType);
-
-        } catch (IOException e) {
-            headers.put("Error", "Could not retrieve headers: " + e.getMessage());
+    private List<String> analyzeTls(HttpInspector.Inspection tls) {
+        List<String> issues = new ArrayList<>();
+        if (!tls.handshakeCompleted()) {
+            issues.add("No HTTPS support (TLS handshake failed)");
+            return issues;
         }
-        return headers;
+        if (tls.trustError != null) {
+            issues.add("Certificate is not trusted: " + tls.trustError);
+        }
+        if ("TLSv1".equals(tls.tlsProtocol) || "TLSv1.1".equals(tls.tlsProtocol)
+                || tls.tlsProtocol.startsWith("SSL")) {
+            issues.add("Outdated TLS protocol negotiated: " + tls.tlsProtocol);
+        }
+        if (!tls.certificates.isEmpty()) {
+            long remaining = tls.certificates.get(0).getNotAfter().getTime() - System.currentTimeMillis();
+            if (remaining < 0) {
+                issues.add("Certificate has expired");
+            } else if (remaining < TimeUnit.DAYS.toMillis(CERT_EXPIRY_WARNING_DAYS)) {
+                issues.add("Certificate expires within " + CERT_EXPIRY_WARNING_DAYS + " days");
+            }
+        }
+        return issues;
     }
 
-    private List<String> analyzeSecurityHeaders(Map<String, String> headers) {
+    static List<String> analyzeSecurityHeaders(Map<String, String> headers) {
         List<String> issues = new ArrayList<>();
 
         // Check for security headers
@@ -128,10 +316,6 @@ public class WebsiteScannerService {
             issues.add("Missing HSTS header (HTTPS enforcement)");
         }
 
-        if (issues.isEmpty()) {
-            issues.add("Good! Basic security headers are present.");
-        }
-
         return issues;
     }
 }
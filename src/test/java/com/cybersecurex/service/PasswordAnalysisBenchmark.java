@@ -0,0 +1,283 @@
+package com.cybersecurex.service;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Times the local password analysis (score, strength label, suggestions and
+ * detailed analysis, without the breach lookup) per call: the regex-based
+ * implementation PasswordService used before PasswordProfile, against the
+ * current one-pass version. Both run over the same random passwords, and
+ * their output is compared first so the timings cover equivalent work.
+ *
+ * Not a unit test; run it by hand after a build:
+ *
+ *   mvn -q test-compile
+ *   java -cp target/classes:target/test-classes com.cybersecurex.service.PasswordAnalysisBenchmark [passwords] [rounds]
+ */
+public class PasswordAnalysisBenchmark {
+
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789"
+            + "!@#$%^&*()-_=+[]{};:,.<>/?~ éüßøλжあ";
+    private static final String[] SEEDS = { "password", "admin", "qwerty", "welcome", "123", "abc", "aaa" };
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        String[] passwords = randomPasswords(count, new Random(42));
+        PasswordService service = new PasswordService();
+
+        int mismatches = 0;
+        for (String password : passwords) {
+            if (!RegexAnalysis.analyze(password).equals(profileAnalysis(service, password))) {
+                mismatches++;
+            }
+        }
+        System.out.printf("%d passwords, %d rounds, %d output mismatches%n", count, rounds, mismatches);
+
+        // Warm both paths up before timing them
+        for (int i = 0; i < 20; i++) {
+            run(passwords, password -> RegexAnalysis.analyze(password).hashCode());
+            run(passwords, password -> profileAnalysis(service, password).hashCode());
+            run(passwords, password -> PasswordProfile.of(password).uniqueChars);
+        }
+
+        long regex = 0;
+        long profile = 0;
+        long profileOnly = 0;
+        for (int round = 0; round < rounds; round++) {
+            regex += run(passwords, password -> RegexAnalysis.analyze(password).hashCode());
+            profile += run(passwords, password -> profileAnalysis(service, password).hashCode());
+            profileOnly += run(passwords, password -> PasswordProfile.of(password).uniqueChars);
+        }
+        long calls = (long) count * rounds;
+        System.out.printf("regex analysis:    %8.2f us/call%n", regex / 1000.0 / calls);
+        System.out.printf("profile analysis:  %8.2f us/call%n", profile / 1000.0 / calls);
+        System.out.printf("PasswordProfile.of:%8.2f us/call%n", profileOnly / 1000.0 / calls);
+        System.out.printf("speedup:           %8.1fx%n", (double) regex / profile);
+        if (sink == 42) {
+            System.out.println(); // Keeps the results observable so the JIT cannot drop the work
+        }
+    }
+
+    private interface Analysis {
+        int apply(String password);
+    }
+
+    private static long run(String[] passwords, Analysis analysis) {
+        long started = System.nanoTime();
+        for (String password : passwords) {
+            sink += analysis.apply(password);
+        }
+        return System.nanoTime() - started;
+    }
+
+    // What PasswordService.analyzePassword computes locally, keyed as in its result
+    private static Map<String, Object> profileAnalysis(PasswordService service, String password) {
+        PasswordProfile profile = PasswordProfile.of(password);
+        int score = service.calculateStrengthScore(profile);
+        Map<String, Object> result = new HashMap<>();
+        result.put("score", score);
+        result.put("strength", service.getStrengthLabel(score));
+        result.put("suggestions", service.getImprovementSuggestions(profile));
+        result.put("analysis", service.getDetailedAnalysis(profile));
+        return result;
+    }
+
+    // BMP characters only, since surrogate pairs are counted differently on purpose
+    private static String[] randomPasswords(int count, Random random) {
+        String[] passwords = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder password = new StringBuilder();
+            int length = 4 + random.nextInt(20);
+            while (password.length() < length) {
+                if (random.nextInt(8) == 0) {
+                    password.append(SEEDS[random.nextInt(SEEDS.length)]);
+                } else {
+                    password.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                }
+            }
+            passwords[i] = random.nextInt(50) == 0 ? SEEDS[random.nextInt(3)] : password.toString();
+        }
+        return passwords;
+    }
+
+    // PasswordService's local analysis as it was before PasswordProfile, kept verbatim for comparison
+    private static final class RegexAnalysis {
+
+        static Map<String, Object> analyze(String password) {
+            int score = calculateStrengthScore(password);
+            Map<String, Object> result = new HashMap<>();
+            result.put("score", score);
+            result.put("strength", getStrengthLabel(score));
+            result.put("suggestions", getImprovementSuggestions(password));
+            result.put("analysis", getDetailedAnalysis(password));
+            return result;
+        }
+
+        private static int calculateStrengthScore(String password) {
+            int score = 0;
+
+            // Length scoring (up to 40 points)
+            score += Math.min(password.length() * 4, 40);
+
+            // Character variety (50 points total)
+            if (Pattern.compile("[a-z]").matcher(password).find())
+                score += 10;
+            if (Pattern.compile("[A-Z]").matcher(password).find())
+                score += 10;
+            if (Pattern.compile("[0-9]").matcher(password).find())
+                score += 10;
+            if (Pattern.compile("[^a-zA-Z0-9]").matcher(password).find())
+                score += 15;
+
+            // Length bonuses
+            if (password.length() >= 8)
+                score += 5;
+            if (password.length() >= 12)
+                score += 10;
+            if (password.length() >= 16)
+                score += 5;
+
+            // Complexity bonuses
+            if (!hasRepeatingChars(password))
+                score += 5;
+            if (!hasCommonPatterns(password))
+                score += 5;
+            if (hasGoodMixOfChars(password))
+                score += 5;
+
+            return Math.min(score, 100);
+        }
+
+        private static String getStrengthLabel(int score) {
+            if (score >= 90)
+                return "Excellent";
+            if (score >= 75)
+                return "Strong";
+            if (score >= 60)
+                return "Good";
+            if (score >= 40)
+                return "Fair";
+            if (score >= 25)
+                return "Weak";
+            return "Very Weak";
+        }
+
+        private static List<String> getImprovementSuggestions(String password) {
+            List<String> suggestions = new ArrayList<>();
+
+            if (password.length() < 8) {
+                suggestions.add("🔢 Use at least 8 characters (current: " + password.length() + ")");
+            }
+            if (password.length() < 12) {
+                suggestions.add("🎯 Consider 12+ characters for better security");
+            }
+            if (!Pattern.compile("[a-z]").matcher(password).find()) {
+                suggestions.add("🔤 Add lowercase letters (a-z)");
+            }
+            if (!Pattern.compile("[A-Z]").matcher(password).find()) {
+                suggestions.add("🔠 Add uppercase letters (A-Z)");
+            }
+            if (!Pattern.compile("[0-9]").matcher(password).find()) {
+                suggestions.add("🔢 Add numbers (0-9)");
+            }
+            if (!Pattern.compile("[^a-zA-Z0-9]").matcher(password).find()) {
+                suggestions.add("🔣 Add special characters (!@#$%^&*)");
+            }
+            if (hasRepeatingChars(password)) {
+                suggestions.add("🔄 Avoid repeating characters (aaa, 111)");
+            }
+            if (hasCommonPatterns(password)) {
+                suggestions.add("🚫 Avoid common patterns (123, abc, qwe)");
+            }
+            if (isCommonPassword(password)) {
+                suggestions.add("⚠️ Avoid common passwords");
+            }
+
+            if (suggestions.isEmpty()) {
+                suggestions.add("✅ Your password looks strong! Keep it secure.");
+            }
+
+            return suggestions;
+        }
+
+        private static Map<String, Object> getDetailedAnalysis(String password) {
+            Map<String, Object> analysis = new HashMap<>();
+
+            analysis.put("length", password.length());
+            analysis.put("hasLowercase", Pattern.compile("[a-z]").matcher(password).find());
+            analysis.put("hasUppercase", Pattern.compile("[A-Z]").matcher(password).find());
+            analysis.put("hasNumbers", Pattern.compile("[0-9]").matcher(password).find());
+            analysis.put("hasSpecialChars", Pattern.compile("[^a-zA-Z0-9]").matcher(password).find());
+            analysis.put("uniqueChars", password.chars().distinct().count());
+            analysis.put("entropy", calculateEntropy(password));
+
+            return analysis;
+        }
+
+        private static boolean hasRepeatingChars(String password) {
+            for (int i = 0; i < password.length() - 2; i++) {
+                if (password.charAt(i) == password.charAt(i + 1) &&
+                        password.charAt(i) == password.charAt(i + 2)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean hasCommonPatterns(String password) {
+            String lower = password.toLowerCase();
+            String[] patterns = { "123", "abc", "qwe", "password", "admin", "login", "welcome" };
+            for (String pattern : patterns) {
+                if (lower.contains(pattern)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean hasGoodMixOfChars(String password) {
+            int categories = 0;
+            if (Pattern.compile("[a-z]").matcher(password).find())
+                categories++;
+            if (Pattern.compile("[A-Z]").matcher(password).find())
+                categories++;
+            if (Pattern.compile("[0-9]").matcher(password).find())
+                categories++;
+            if (Pattern.compile("[^a-zA-Z0-9]").matcher(password).find())
+                categories++;
+            return categories >= 3;
+        }
+
+        private static boolean isCommonPassword(String password) {
+            String[] common = { "password", "123456", "password123", "admin", "qwerty",
+                    "letmein", "welcome", "monkey", "dragon" };
+            String lower = password.toLowerCase();
+            for (String commonPwd : common) {
+                if (lower.equals(commonPwd)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static double calculateEntropy(String password) {
+            Map<Character, Integer> frequencies = new HashMap<>();
+            for (char c : password.toCharArray()) {
+                frequencies.put(c, frequencies.getOrDefault(c, 0) + 1);
+            }
+
+            double entropy = 0.0;
+            int length = password.length();
+            for (int freq : frequencies.values()) {
+                double probability = (double) freq / length;
+                entropy -= probability * (Math.log(probability) / Math.log(2));
+            }
+
+            return Math.round(entropy * 100.0) / 100.0;
+        }
+    }
+}